@@ -33,6 +33,9 @@ public class AppConfig {
 	                .authorizeHttpRequests(Authorize -> Authorize
 //	                		.requestMatchers("/api/admin/**").hasRole("ADMIN")
 	                                .requestMatchers("/api/**").authenticated()
+	                                // health is public for probes; metrics expose cache, breaker and pool internals
+	                                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+	                                .requestMatchers("/actuator/**").authenticated()
 	                                
 	                                .anyRequest().permitAll()
 	                )
@@ -0,0 +1,37 @@
+package com.anil.config;
+
+import com.anil.service.MarketDataAge;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds an Age header (seconds since the upstream fetch) to responses built from
+ * cached or last-known-good market data, so clients can tell how fresh it is.
+ */
+@ControllerAdvice
+public class MarketDataAgeAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(MarketDataAge.ATTRIBUTE) instanceof Long fetchedAt) {
+            long age = Math.max(0, (System.currentTimeMillis() - fetchedAt) / 1000);
+            response.getHeaders().set(HttpHeaders.AGE, Long.toString(age));
+        }
+        return body;
+    }
+}
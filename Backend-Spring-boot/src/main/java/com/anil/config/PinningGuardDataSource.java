@@ -0,0 +1,116 @@
+package com.anil.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets at most {@code permits} connections be checked out at once. A virtual
+ * thread that holds a connection may be pinned to its carrier while the driver
+ * blocks inside {@code synchronized} code; keeping the holders below the
+ * carrier count means some carriers are always left to run other virtual
+ * threads. Waiting for a permit parks the virtual thread without pinning it.
+ *
+ * The permit belongs to the thread: a thread that already holds a connection
+ * (say, a REQUIRES_NEW call inside a transaction) gets its nested ones without
+ * taking another permit, so nesting can't deadlock on the guard. The permit is
+ * returned when the last of the thread's connections is closed.
+ */
+class PinningGuardDataSource extends DelegatingDataSource {
+
+    private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+
+    private final Semaphore permits;
+
+    // open connections of the thread that holds the permit
+    private final ThreadLocal<AtomicInteger> held = new ThreadLocal<>();
+
+    PinningGuardDataSource(DataSource target, int permits) {
+        super(target);
+        this.permits = new Semaphore(permits, true);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        AtomicInteger holder = acquire();
+        try {
+            return guarded(super.getConnection(), holder);
+        } catch (SQLException | RuntimeException e) {
+            release(holder);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        AtomicInteger holder = acquire();
+        try {
+            return guarded(super.getConnection(username, password), holder);
+        } catch (SQLException | RuntimeException e) {
+            release(holder);
+            throw e;
+        }
+    }
+
+    private AtomicInteger acquire() throws SQLException {
+        AtomicInteger holder = held.get();
+        if (holder != null && holder.getAndUpdate(n -> n > 0 ? n + 1 : n) > 0) return holder;
+        try {
+            if (!permits.tryAcquire(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                throw new SQLTransientConnectionException("Timed out waiting for a JDBC permit");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a JDBC permit", e);
+        }
+        holder = new AtomicInteger(1);
+        held.set(holder);
+        return holder;
+    }
+
+    private void release(AtomicInteger holder) {
+        if (holder.decrementAndGet() == 0) {
+            if (held.get() == holder) held.remove();
+            permits.release();
+        }
+    }
+
+    // each connection gives up its share with the first close(); further closes are no-ops for the guard
+    private Connection guarded(Connection connection, AtomicInteger holder) {
+        AtomicBoolean released = new AtomicBoolean();
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("equals") && method.getParameterCount() == 1) return proxy == args[0];
+            if (method.getName().equals("hashCode") && method.getParameterCount() == 0) return System.identityHashCode(proxy);
+            if (method.getName().equals("close") && method.getParameterCount() == 0
+                    && released.compareAndSet(false, true)) {
+                try {
+                    return invoke(connection, method, args);
+                } finally {
+                    release(holder);
+                }
+            }
+            return invoke(connection, method, args);
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
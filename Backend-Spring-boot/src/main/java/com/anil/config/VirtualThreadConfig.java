@@ -0,0 +1,87 @@
+package com.anil.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+
+/**
+ * Opt-in virtual-thread mode, switched by Spring Boot's own
+ * {@code spring.threads.virtual.enabled}. With it on (JDK 21+) Boot already runs
+ * Tomcat request handling and the scheduler on virtual threads; this class adds
+ * the pieces Boot doesn't know about:
+ * <ul>
+ *   <li>{@code outboundExecutor}, for fanning blocking upstream calls out of a
+ *       request: a virtual thread per task, or a bounded platform pool when the
+ *       mode is off;</li>
+ *   <li>a {@link PinningGuardDataSource} around the pool, because the MySQL
+ *       driver still does socket I/O inside {@code synchronized} blocks, which
+ *       pins the carrier thread. Capping the threads doing JDBC work at the
+ *       carrier count (at least two) bounds how many carriers the driver can
+ *       hold; a thread's nested checkouts share its permit.</li>
+ * </ul>
+ * On an older JDK the switch is reported and ignored; everything stays on
+ * platform threads.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    @Value("${outbound.executor.platform-threads:32}")
+    private int outboundPlatformThreads;
+
+    public static boolean enabled(Environment environment) {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (requested && Runtime.version().feature() < 21) {
+            System.err.println("spring.threads.virtual.enabled is set but JDK " + Runtime.version().feature()
+                    + " has no virtual threads; staying on platform threads");
+            return false;
+        }
+        return requested;
+    }
+
+    @Bean
+    AsyncTaskExecutor outboundExecutor(Environment environment) {
+        if (enabled(environment)) {
+            return new VirtualThreadTaskExecutor("outbound-");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("outbound-");
+        executor.setCorePoolSize(outboundPlatformThreads);
+        executor.setMaxPoolSize(outboundPlatformThreads);
+        executor.setQueueCapacity(outboundPlatformThreads * 16);
+        executor.setDaemon(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // static: post-processors are created before the rest of the configuration is ready
+    @Bean
+    static BeanPostProcessor jdbcPinningGuard(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof PinningGuardDataSource
+                        || !enabled(environment)) {
+                    return bean;
+                }
+                int permits = environment.getProperty("virtual-threads.jdbc-max-concurrency", Integer.class, 0);
+                return new PinningGuardDataSource(dataSource, permits > 0 ? permits : defaultJdbcPermits());
+            }
+        };
+    }
+
+    static int defaultJdbcPermits() {
+        return Math.max(2, carriers());
+    }
+
+    private static int carriers() {
+        String parallelism = System.getProperty("jdk.virtualThreadScheduler.parallelism");
+        return parallelism != null ? Integer.parseInt(parallelism) : Runtime.getRuntime().availableProcessors();
+    }
+}
@@ -1,14 +1,19 @@
 package com.anil.controller;
 
+import com.anil.config.JwtProvider;
 import com.anil.exception.UserException;
 import com.anil.model.Asset;
 import com.anil.model.User;
 import com.anil.service.AssetService;
+import com.anil.service.DataVersions;
 
 import com.anil.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,6 +24,9 @@ public class AssetController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private DataVersions dataVersions;
+
     @Autowired
     public AssetController(AssetService assetService) {
         this.assetService = assetService;
@@ -43,10 +51,17 @@ public class AssetController {
 
     @GetMapping()
     public ResponseEntity<List<Asset>> getAssetsForUser(
-            @RequestHeader("Authorization") String jwt
+            @RequestHeader("Authorization") String jwt,
+            WebRequest request
     ) throws UserException {
+        // answered from the version counters before the user or assets are loaded
+        String etag = dataVersions.userETag("assets", JwtProvider.getEmailFromJwtToken(jwt));
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
         User user=userService.findUserProfileByJwt(jwt);
         List<Asset> assets = assetService.getUsersAssets(user.getId());
-        return ResponseEntity.ok().body(assets);
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(assets);
     }
 }
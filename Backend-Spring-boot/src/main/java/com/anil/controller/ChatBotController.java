@@ -7,8 +7,10 @@ import com.anil.service.ChatBotService;
 import com.anil.service.ChatBotServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController()
 @RequestMapping("/chat")
@@ -38,4 +40,10 @@ public class ChatBotController {
         ApiResponse res = chatBotService.getCoinDetails(promptBody.getPrompt());
         return new ResponseEntity<>(res, HttpStatus.OK);
     }
+
+    @PostMapping(value = "/bot/coin/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCoinRealtime(@RequestBody PromptBody promptBody){
+
+        return chatBotService.streamCoinDetails(promptBody.getPrompt());
+    }
 }
@@ -2,10 +2,13 @@ package com.anil.controller;
 
 import com.anil.model.ChatMessage;
 import com.anil.model.CoinChatMessage;
+import com.anil.response.ChatHistoryPage;
 import com.anil.service.ChatService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -28,6 +31,14 @@ public class ChatController {
         List<ChatMessage> history = chatService.getChatHistory(sender);
         return ResponseEntity.ok(history);
     }
+
+    @GetMapping("/history/{sender}/page")
+    public ResponseEntity<ChatHistoryPage> getChatHistoryPage(@PathVariable String sender,
+                                                              @RequestParam(required = false) String before,
+                                                              @RequestParam(required = false) String after,
+                                                              @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(chatService.getChatHistoryPage(sender, before, after, limit));
+    }
     
     // New endpoint for coin-related chat
     @PostMapping("/bot/coin")
@@ -35,4 +46,9 @@ public class ChatController {
         CoinChatMessage response = chatService.processCoinQuery(request.getPrompt());
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+
+    @PostMapping(value = "/bot/coin/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCoinQuery(@RequestBody CoinChatMessage request) {
+        return chatService.streamCoinQuery(request.getPrompt());
+    }
+}
@@ -1,16 +1,20 @@
 package com.anil.controller;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.anil.model.Coin;
-import com.anil.model.MarketChartData;
 import com.anil.service.CoinService;
+import com.anil.service.PriceStreamService;
+import com.anil.service.TickStore;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -21,64 +25,131 @@ public class CoinController {
     private CoinService coinService;
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private PriceStreamService priceStreamService;
+
+    @Autowired
+    private TickStore tickStore;
+
+    @Value("${market-data.cache.coin-list-ttl-seconds:60}")
+    private long coinListTtl;
+
+    @Value("${market-data.cache.top50-ttl-seconds:60}")
+    private long top50Ttl;
+
+    @Value("${market-data.cache.trending-ttl-seconds:300}")
+    private long trendingTtl;
 
     @GetMapping
-    ResponseEntity<List<Coin>> getCoinList(@RequestParam("page") int page) throws Exception {
+    ResponseEntity<List<Coin>> getCoinList(@RequestParam("page") int page, WebRequest request) throws Exception {
+        String etag = "\"coins-" + page + "-" + coinService.getCoinListVersion(page) + "\"";
+        CacheControl cacheControl = publicCache(coinListTtl);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
         List<Coin> coins=coinService.getCoinList(page);
-        return new ResponseEntity<>(coins, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(coins);
     }
 
     @GetMapping("/{coinId}/chart")
-    ResponseEntity<JsonNode> getMarketChart(@PathVariable String coinId,
-                                                         @RequestParam("days")int days) throws Exception {
-       String coins=coinService.getMarketChart(coinId,days);
-        JsonNode jsonNode = objectMapper.readTree(coins);
-
-
-        return ResponseEntity.ok(jsonNode);
-
+    ResponseEntity<byte[]> getMarketChart(@PathVariable String coinId,
+                                          @RequestParam("days")int days,
+                                          @RequestParam(value = "points", required = false) Integer points,
+                                          @RequestParam(value = "interval", required = false) String interval) throws Exception {
+        return json(coinService.getMarketChart(coinId,days,points,interval));
     }
 
+    @GetMapping("/{coinId}/sparkline")
+    ResponseEntity<byte[]> getSparkline(@PathVariable String coinId,
+                                        @RequestParam(value = "points", defaultValue = "60") int points) throws Exception {
+        byte[] body = tickStore.sparklineJson(coinId, points);
+        if (body == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return json(body);
+    }
 
     @GetMapping("/search")
-    ResponseEntity<JsonNode> searchCoin(@RequestParam("q") String keyword) throws JsonProcessingException {
-        String coin=coinService.searchCoin(keyword);
-        JsonNode jsonNode = objectMapper.readTree(coin);
-
-        return ResponseEntity.ok(jsonNode);
-
+    ResponseEntity<byte[]> searchCoin(@RequestParam("q") String keyword) throws Exception {
+        return json(coinService.searchCoin(keyword));
     }
+
     @GetMapping("/top50")
-    ResponseEntity<JsonNode> getTop50CoinByMarketCapRank() throws JsonProcessingException {
-        String coin=coinService.getTop50CoinsByMarketCapRank();
-        JsonNode jsonNode = objectMapper.readTree(coin);
+    ResponseEntity<byte[]> getTop50CoinByMarketCapRank(WebRequest request) throws Exception {
+        String etag = "\"top50-" + coinService.getTop50Version() + "\"";
+        CacheControl cacheControl = publicCache(top50Ttl);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return json(ResponseEntity.ok().eTag(etag).cacheControl(cacheControl),
+                coinService.getTop50CoinsByMarketCapRank());
+    }
 
-        return ResponseEntity.ok(jsonNode);
+    @GetMapping("/trading")
+    ResponseEntity<byte[]> getTreadingCoin() throws Exception {
+        return json(ResponseEntity.ok().cacheControl(publicCache(trendingTtl)), coinService.getTreadingCoins());
+    }
 
+    @GetMapping("/details/{coinId}")
+    ResponseEntity<byte[]> getCoinDetails(@PathVariable String coinId) throws Exception {
+        return json(coinService.getCoinDetails(coinId));
     }
 
-    @GetMapping("/trading")
-    ResponseEntity<JsonNode> getTreadingCoin() throws JsonProcessingException {
-        String coin=coinService.getTreadingCoins();
-        JsonNode jsonNode = objectMapper.readTree(coin);
-        return ResponseEntity.ok(jsonNode);
+    // shared caches may keep the snapshot for its TTL (less the Age header) and serve it
+    // stale for another TTL while they revalidate, as the in-process cache does
+    private CacheControl publicCache(long ttlSeconds) {
+        return CacheControl.maxAge(Duration.ofSeconds(ttlSeconds))
+                .cachePublic()
+                .staleWhileRevalidate(Duration.ofSeconds(ttlSeconds));
+    }
 
+    // upstream JSON is written to the response as-is; no JsonNode round trip
+    private ResponseEntity<byte[]> json(byte[] body) {
+        return json(ResponseEntity.ok(), body);
     }
 
-    @GetMapping("/details/{coinId}")
-    ResponseEntity<JsonNode> getCoinDetails(@PathVariable String coinId) throws JsonProcessingException {
-        String coin=coinService.getCoinDetails(coinId);
-        JsonNode jsonNode = objectMapper.readTree(coin);
+    private ResponseEntity<byte[]> json(ResponseEntity.BodyBuilder response, byte[] body) {
+        if (body == null) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return response
+                .contentType(MediaType.APPLICATION_JSON)
+                .contentLength(body.length)
+                .body(body);
+    }
 
-        return ResponseEntity.ok(jsonNode);
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    ResponseEntity<SseEmitter> streamPrices(@RequestParam("ids") List<String> coinIds,
+                                            @RequestParam(value = "format", defaultValue = "json") String format) {
+        SseEmitter emitter;
+        try {
+            emitter = priceStreamService.subscribe(coinIds, format.equals("binary"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (emitter == null) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return ResponseEntity.ok(emitter);
+    }
 
+    @GetMapping(value = "/prices/frames", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    ResponseEntity<byte[]> getPriceFrames(@RequestParam(value = "since", required = false) Long since) {
+        byte[] frames = priceStreamService.framesSince(since);
+        if (frames == null) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        if (frames.length == 0) {
+            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(frames);
     }
 
     @GetMapping("/top-gainers")
-    public ResponseEntity<List<Coin>> getTopGainers() {
+    public ResponseEntity<List<Coin>> getTopGainers(@RequestParam(value = "limit", defaultValue = "10") int limit) {
         try {
-            List<Coin> topGainers = coinService.getTopGainers();
+            List<Coin> topGainers = coinService.getTopGainers(limit);
             return new ResponseEntity<>(topGainers, HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -86,12 +157,30 @@ public class CoinController {
     }
 
     @GetMapping("/top-losers")
-    public ResponseEntity<List<Coin>> getTopLosers() {
+    public ResponseEntity<List<Coin>> getTopLosers(@RequestParam(value = "limit", defaultValue = "10") int limit) {
         try {
-            List<Coin> topLosers = coinService.getTopLosers();
+            List<Coin> topLosers = coinService.getTopLosers(limit);
             return new ResponseEntity<>(topLosers, HttpStatus.OK);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
+
+    @GetMapping("/top-volume")
+    public ResponseEntity<List<Coin>> getTopByVolume(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        try {
+            return new ResponseEntity<>(coinService.getTopByVolume(limit), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping("/top-market-cap")
+    public ResponseEntity<List<Coin>> getTopByMarketCap(@RequestParam(value = "limit", defaultValue = "10") int limit) {
+        try {
+            return new ResponseEntity<>(coinService.getTopByMarketCap(limit), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
 }
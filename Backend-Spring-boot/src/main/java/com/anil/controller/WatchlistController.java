@@ -1,16 +1,20 @@
 package com.anil.controller;
 
+import com.anil.config.JwtProvider;
 import com.anil.exception.UserException;
 import com.anil.model.Coin;
 import com.anil.model.User;
 import com.anil.model.Watchlist;
 import com.anil.service.CoinService;
+import com.anil.service.DataVersions;
 import com.anil.service.UserService;
 import com.anil.service.WatchlistService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/watchlist")
@@ -21,6 +25,9 @@ public class WatchlistController {
     @Autowired
     private CoinService coinService;
 
+    @Autowired
+    private DataVersions dataVersions;
+
     @Autowired
     public WatchlistController(WatchlistService watchlistService,
                                UserService userService) {
@@ -30,11 +37,17 @@ public class WatchlistController {
 
     @GetMapping("/user")
     public ResponseEntity<Watchlist> getUserWatchlist(
-            @RequestHeader("Authorization") String jwt) throws Exception {
+            @RequestHeader("Authorization") String jwt,
+            WebRequest request) throws Exception {
 
+            String etag = dataVersions.userETag("watchlist", JwtProvider.getEmailFromJwtToken(jwt));
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+            if (request.checkNotModified(etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+            }
             User user=userService.findUserProfileByJwt(jwt);
             Watchlist watchlist = watchlistService.findUserWatchlist(user.getId());
-            return ResponseEntity.ok(watchlist);
+            return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(watchlist);
 
     }
 
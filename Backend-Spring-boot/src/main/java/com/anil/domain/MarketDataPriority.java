@@ -0,0 +1,9 @@
+package com.anil.domain;
+
+// declaration order is scheduling order: earlier constants get upstream tokens first
+public enum MarketDataPriority {
+    PRICE_REFRESH,
+    INTERACTIVE,
+    WIDGET,
+    CHATBOT
+}
@@ -1,5 +1,6 @@
 package com.anil.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,6 +22,17 @@ public class GlobelExeptions {
 		return new ResponseEntity<ErrorDetails>(error,HttpStatus.BAD_REQUEST);
 	}
 
+	@ExceptionHandler(MarketDataUnavailableException.class)
+	public ResponseEntity<ErrorDetails> marketDataUnavailableHandler(MarketDataUnavailableException ex,
+			WebRequest req){
+		ErrorDetails error=new ErrorDetails(ex.getMessage(),
+				req.getDescription(false),
+				LocalDateTime.now());
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+				.body(error);
+	}
+
 	@ExceptionHandler(RuntimeException.class)
 	public ResponseEntity<ErrorDetails> handleRuntimeException(RuntimeException ex, WebRequest request) {
 		ErrorDetails error = new ErrorDetails(ex.getMessage(),
@@ -0,0 +1,22 @@
+package com.anil.exception;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * CoinGecko could not be reached (or its breaker is open) and there is no
+ * earlier response to fall back to. Answered with 503 and Retry-After.
+ */
+public class MarketDataUnavailableException extends RestClientException {
+
+	private final long retryAfterSeconds;
+
+	public MarketDataUnavailableException(String message, long retryAfterSeconds, Throwable cause) {
+		super(message, cause);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+
+}
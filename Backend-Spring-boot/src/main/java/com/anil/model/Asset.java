@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@EntityListeners(DataVersionListener.class)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
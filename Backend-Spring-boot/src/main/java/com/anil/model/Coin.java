@@ -12,6 +12,7 @@ import java.time.LocalDateTime;
 import java.util.Date;
 
 @Entity
+@EntityListeners(DataVersionListener.class)
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
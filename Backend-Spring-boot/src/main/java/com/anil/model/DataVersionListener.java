@@ -0,0 +1,26 @@
+package com.anil.model;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * JPA listener on the entities behind conditional GETs. It announces every
+ * insert, update or delete as an {@link EntityChangedEvent}, whichever service
+ * made it, and the version counters listen for those. Hibernate creates it
+ * through Spring, hence the field injection.
+ */
+public class DataVersionListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(Object entity) {
+        if (eventPublisher != null) eventPublisher.publishEvent(new EntityChangedEvent(entity));
+    }
+}
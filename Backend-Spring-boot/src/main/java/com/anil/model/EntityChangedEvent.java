@@ -0,0 +1,5 @@
+package com.anil.model;
+
+/** Published synchronously, inside the writing transaction, after an entity row was written or deleted. */
+public record EntityChangedEvent(Object entity) {
+}
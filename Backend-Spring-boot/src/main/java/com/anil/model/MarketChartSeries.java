@@ -0,0 +1,143 @@
+package com.anil.model;
+
+import java.util.Arrays;
+
+/**
+ * Columnar price / market cap / volume history for one coin, kept in parallel
+ * primitive arrays sorted by timestamp (epoch millis). Not thread safe; the
+ * owner synchronizes writes and hands out copies via {@link #range}.
+ */
+public class MarketChartSeries {
+
+    private long[] timestamps;
+    private double[] prices;
+    private double[] marketCaps;
+    private double[] volumes;
+    private int size;
+
+    public MarketChartSeries() {
+        this(64);
+    }
+
+    public MarketChartSeries(int capacity) {
+        timestamps = new long[capacity];
+        prices = new double[capacity];
+        marketCaps = new double[capacity];
+        volumes = new double[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long timestamp(int i) {
+        return timestamps[i];
+    }
+
+    public double price(int i) {
+        return prices[i];
+    }
+
+    public double marketCap(int i) {
+        return marketCaps[i];
+    }
+
+    public double volume(int i) {
+        return volumes[i];
+    }
+
+    // backing arrays for the aggregation kernels; only the first size() slots are valid
+    public long[] timestamps() {
+        return timestamps;
+    }
+
+    public double[] prices() {
+        return prices;
+    }
+
+    public long firstTimestamp() {
+        return size == 0 ? Long.MAX_VALUE : timestamps[0];
+    }
+
+    public long lastTimestamp() {
+        return size == 0 ? Long.MIN_VALUE : timestamps[size - 1];
+    }
+
+    public void append(long timestamp, double price, double marketCap, double volume) {
+        if (size == timestamps.length) {
+            int capacity = Math.max(16, size * 2);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            marketCaps = Arrays.copyOf(marketCaps, capacity);
+            volumes = Arrays.copyOf(volumes, capacity);
+        }
+        timestamps[size] = timestamp;
+        prices[size] = price;
+        marketCaps[size] = marketCap;
+        volumes[size] = volume;
+        size++;
+    }
+
+    public void setMarketCap(int i, double marketCap) {
+        marketCaps[i] = marketCap;
+    }
+
+    public void setVolume(int i, double volume) {
+        volumes[i] = volume;
+    }
+
+    public void removeLast() {
+        if (size > 0) size--;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /** Drops every point older than {@code timestamp}. */
+    public void trimBefore(long timestamp) {
+        int from = lowerBound(timestamp);
+        if (from == 0) return;
+        int remaining = size - from;
+        System.arraycopy(timestamps, from, timestamps, 0, remaining);
+        System.arraycopy(prices, from, prices, 0, remaining);
+        System.arraycopy(marketCaps, from, marketCaps, 0, remaining);
+        System.arraycopy(volumes, from, volumes, 0, remaining);
+        size = remaining;
+    }
+
+    /** Copy of the points with {@code timestamp >= from}. */
+    public MarketChartSeries range(long from) {
+        int start = lowerBound(from);
+        int length = size - start;
+        MarketChartSeries copy = new MarketChartSeries(Math.max(1, length));
+        System.arraycopy(timestamps, start, copy.timestamps, 0, length);
+        System.arraycopy(prices, start, copy.prices, 0, length);
+        System.arraycopy(marketCaps, start, copy.marketCaps, 0, length);
+        System.arraycopy(volumes, start, copy.volumes, 0, length);
+        copy.size = length;
+        return copy;
+    }
+
+    /** Copy of the points at the given (ascending) indices. */
+    public MarketChartSeries select(int[] indices, int count) {
+        MarketChartSeries copy = new MarketChartSeries(Math.max(1, count));
+        for (int k = 0; k < count; k++) {
+            int i = indices[k];
+            copy.append(timestamps[i], prices[i], marketCaps[i], volumes[i]);
+        }
+        return copy;
+    }
+
+    // first index whose timestamp is >= the given one
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[mid] < timestamp) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+}
@@ -1,12 +1,35 @@
 package com.anil.repository;
 
 import com.anil.model.ChatMessage;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * History reads are keyset pages over (sender, created_at, id), which is what
+ * idx_chat_messages_sender_created covers: each page is a range scan of at most
+ * {@code limit} index entries, however long the conversation.
+ */
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
-    List<ChatMessage> findBySenderOrderByCreatedAtAsc(String sender);
-} 
\ No newline at end of file
+
+    @Query("select m from ChatMessage m where m.sender = :sender order by m.createdAt desc, m.id desc")
+    List<ChatMessage> findLatest(@Param("sender") String sender, Limit limit);
+
+    @Query("select m from ChatMessage m where m.sender = :sender"
+            + " and (m.createdAt < :createdAt or (m.createdAt = :createdAt and m.id < :id))"
+            + " order by m.createdAt desc, m.id desc")
+    List<ChatMessage> findBefore(@Param("sender") String sender, @Param("createdAt") LocalDateTime createdAt,
+                                 @Param("id") long id, Limit limit);
+
+    @Query("select m from ChatMessage m where m.sender = :sender"
+            + " and (m.createdAt > :createdAt or (m.createdAt = :createdAt and m.id > :id))"
+            + " order by m.createdAt asc, m.id asc")
+    List<ChatMessage> findAfter(@Param("sender") String sender, @Param("createdAt") LocalDateTime createdAt,
+                                @Param("id") long id, Limit limit);
+}
@@ -3,5 +3,16 @@ package com.anil.repository;
 import com.anil.model.Coin;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface CoinRepository extends JpaRepository<Coin,String> {
+
+    interface AliasView {
+        String getId();
+        String getSymbol();
+        String getName();
+        int getMarketCapRank();
+    }
+
+    List<AliasView> findByMarketCapRankBetweenOrderByMarketCapRankAsc(int from, int to);
 }
@@ -0,0 +1,22 @@
+package com.anil.response;
+
+import com.anil.model.ChatMessage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChatHistoryPage {
+
+	// oldest first, whichever direction the page was read in
+	private List<ChatMessage> messages;
+	// pass as "before" to read further back; null when nothing older exists
+	private String olderCursor;
+	// pass as "after" to poll for newer messages
+	private String newerCursor;
+
+}
@@ -2,10 +2,13 @@ package com.anil.service;
 
 import com.anil.model.CoinDTO;
 import com.anil.response.ApiResponse;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 public interface ChatBotService {
     ApiResponse getCoinDetails(String coinName);
 
+    SseEmitter streamCoinDetails(String prompt);
+
     CoinDTO getCoinByName(String coinName);
 
     String simpleChat(String prompt);
@@ -4,24 +4,58 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
 import com.jayway.jsonpath.ReadContext;
+import com.anil.exception.MarketDataUnavailableException;
 import com.anil.model.Coin;
 import com.anil.model.CoinDTO;
 import com.anil.response.ApiResponse;
 import com.anil.response.FunctionResponse;
+import com.anil.utils.InterruptibleFuture;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
-
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class ChatBotServiceImpl implements ChatBotService{
@@ -29,62 +63,127 @@ public class ChatBotServiceImpl implements ChatBotService{
     @Value("${gemini.api.key}")
     private String API_KEY;
 
-    private double convertToDouble(Object value) {
-        if (value instanceof Integer) {
-            return ((Integer) value).doubleValue();
-        } else if (value instanceof Long) {
-            return ((Long) value).doubleValue();
-        } else if (value instanceof Double) {
-            return (Double) value;
-        } else {
-            throw new IllegalArgumentException("Unsupported data type: " + value.getClass().getName());
-        }
-    }
+    @Autowired
+    private RestTemplate restTemplate;
 
-    public CoinDTO makeApiRequest(String currencyName) {
-        System.out.println("coin name "+currencyName);
-        String url = "https://api.coingecko.com/api/v3/coins/"+currencyName.toLowerCase();
+    @Autowired
+    private ChatIntentClassifier intentClassifier;
+
+    @Autowired
+    private DataVersions dataVersions;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CloseableHttpClient httpClient;
+
+    @Autowired
+    private CoinDetailsView coinDetailsView;
 
-        RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    @Qualifier("outboundExecutor")
+    private AsyncTaskExecutor outboundExecutor;
 
-            HttpHeaders headers = new HttpHeaders();
+    @Value("${chatbot.stream.deadline-ms:30000}")
+    private long streamDeadlineMs;
 
+    @Value("${chatbot.answer.deadline-ms:20000}")
+    private long answerDeadlineMs = 20000;
 
-            HttpEntity<String> entity = new HttpEntity<>("parameters", headers);
+    private static final String GEMINI_STREAM_URL =
+            "https://generativelanguage.googleapis.com/v1beta/models/gemini-pro:streamGenerateContent?alt=sse&key=";
 
-            ResponseEntity<Map> responseEntity = restTemplate.getForEntity(url, Map.class);
-            Map<String, Object> responseBody = responseEntity.getBody();
-            if (responseBody != null) {
-                Map<String, Object> image = (Map<String, Object>) responseBody.get("image");
+    @Value("${chatbot.cache.function-call-ttl-seconds:3600}")
+    private long functionCallTtl;
 
-                Map<String, Object> marketData = (Map<String, Object>) responseBody.get("market_data");
+    @Value("${chatbot.cache.answer-ttl-seconds:60}")
+    private long answerTtl;
 
-                CoinDTO coinInfo = new CoinDTO();
-                coinInfo.setId((String) responseBody.get("id"));
-                coinInfo.setSymbol((String) responseBody.get("symbol"));
-                coinInfo.setName((String) responseBody.get("name"));
-                coinInfo.setImage((String) image.get("large"));
+    @Value("${chatbot.cache.max-entries:10000}")
+    private long maxCacheEntries;
 
-                coinInfo.setCurrentPrice(convertToDouble(((Map<String, Object>) marketData.get("current_price")).get("usd")));
-                coinInfo.setMarketCap(convertToDouble(((Map<String, Object>) marketData.get("market_cap")).get("usd")));
-                coinInfo.setMarketCapRank((int) responseBody.get("market_cap_rank"));
-                coinInfo.setTotalVolume(convertToDouble(((Map<String, Object>) marketData.get("total_volume")).get("usd")));
-                coinInfo.setHigh24h(convertToDouble(((Map<String, Object>) marketData.get("high_24h")).get("usd")));
-                coinInfo.setLow24h(convertToDouble(((Map<String, Object>) marketData.get("low_24h")).get("usd")));
-                coinInfo.setPriceChange24h(convertToDouble(marketData.get("price_change_24h")) );
-                coinInfo.setPriceChangePercentage24h(convertToDouble(marketData.get("price_change_percentage_24h")));
-                coinInfo.setMarketCapChange24h(convertToDouble(marketData.get("market_cap_change_24h")));
-                coinInfo.setMarketCapChangePercentage24h(convertToDouble( marketData.get("market_cap_change_percentage_24h")));
-                coinInfo.setCirculatingSupply(convertToDouble(marketData.get("circulating_supply")));
-                coinInfo.setTotalSupply(convertToDouble(marketData.get("total_supply")));
+    // normalised prompt -> Gemini's function call (which coin the prompt is about)
+    private AsyncCache<String, FunctionResponse> functionCalls;
 
-                return coinInfo;
+    // final answer for a prompt about one coin, valid until that coin's data changes
+    private record AnswerKey(String prompt, String coinId, long coinVersion) {
+    }
+
+    private AsyncCache<AnswerKey, String> answers;
+
+    private static final Set<String> FILLER_WORDS = Set.of("a", "an", "the", "of", "for", "is", "are", "what",
+            "whats", "s", "me", "tell", "show", "give", "please", "current", "currently", "today", "now", "right",
+            "about", "on", "in", "to", "can", "you", "i", "want", "know", "how", "much");
+
+    @PostConstruct
+    void initCaches() {
+        functionCalls = Caffeine.newBuilder()
+                .maximumSize(maxCacheEntries)
+                .expireAfterWrite(Duration.ofSeconds(functionCallTtl))
+                .recordStats()
+                .buildAsync();
+        answers = Caffeine.newBuilder()
+                .maximumSize(maxCacheEntries)
+                .expireAfterWrite(Duration.ofSeconds(answerTtl))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, functionCalls.synchronous(), "chatbot.function-calls");
+        CaffeineCacheMetrics.monitor(meterRegistry, answers.synchronous(), "chatbot.answers");
+    }
 
-             }
-       return null;
+    /**
+     * Cache key for a prompt: its lower-cased words in order, without filler, so
+     * "What is the price of Bitcoin?" and "price of bitcoin" share an entry.
+     * Order and repeats are kept; "eth price in btc" is not "btc price in eth".
+     */
+    static String normalizePrompt(String prompt) {
+        List<String> words = new ArrayList<>();
+        for (String word : prompt.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty() && !FILLER_WORDS.contains(word)) words.add(word);
+        }
+        return String.join(" ", words);
     }
 
+    // the Gemini round trip runs on the outbound executor, never inside the cache's
+    // compute, so a slow call holds no lock other keys need; a failed call isn't cached
+    private CompletableFuture<FunctionResponse> resolveFunctionCall(String key, String prompt) {
+        return functionCalls.get(key, (k, executor) ->
+                CompletableFuture.supplyAsync(() -> getFunctionResponse(prompt), outboundExecutor));
+    }
 
+    // a request thread waits at most timeoutMs; the shared computation carries on for other callers.
+    // A slow upstream or a saturated outbound executor is a 503, not a hung request or a 400
+    private static <T> T await(CompletableFuture<T> future, long timeoutMs) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new MarketDataUnavailableException("Chatbot answer not ready within " + timeoutMs + " ms", 5, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MarketDataUnavailableException("Interrupted waiting for the chatbot answer", 5, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException wrapped && wrapped.getCause() != null
+                    ? wrapped.getCause() : e.getCause();
+            if (cause instanceof RejectedExecutionException) throw busy(cause);
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static MarketDataUnavailableException busy(Throwable cause) {
+        return new MarketDataUnavailableException("Chatbot is busy, try again shortly", 5, cause);
+    }
+
+    // "BTC", "Bitcoin" and "bitcoin" all resolve to CoinGecko's id
+    private String canonicalCoinId(String currencyName) {
+        List<String> ids = intentClassifier.classify(currencyName).coinIds();
+        return ids.size() == 1 ? ids.get(0) : currencyName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public CoinDTO makeApiRequest(String currencyName) {
+        return coinDetailsView.find(currencyName);
+    }
 
     public FunctionResponse getFunctionResponse(String prompt){
         String GEMINI_API_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-pro:generateContent?key=" + API_KEY;
@@ -131,7 +230,6 @@ public class ChatBotServiceImpl implements ChatBotService{
         HttpEntity<String> requestEntity = new HttpEntity<>(requestBody.toString(), headers);
 
         // Make the POST request
-        RestTemplate restTemplate = new RestTemplate();
         ResponseEntity<String> response = restTemplate.postForEntity(GEMINI_API_URL, requestEntity, String.class);
 
 
@@ -158,11 +256,34 @@ public class ChatBotServiceImpl implements ChatBotService{
 
 
 
+    /**
+     * Repeat questions are answered without Gemini: the function call is cached
+     * per normalised prompt, the answer per prompt, coin and coin-data version
+     * (and only for a short TTL, for coins ingestion doesn't track).
+     */
     @Override
     public ApiResponse getCoinDetails(String prompt) {
+        String key = normalizePrompt(prompt);
+        CompletableFuture<String> answer;
+        try {
+            answer = resolveFunctionCall(key, prompt).thenCompose(call -> {
+                String coinId = canonicalCoinId(call.getCurrencyName());
+                // concurrent misses for the same key wait for one generation. The coin lookup and the
+                // Gemini call are separate tasks, so no outbound task ever blocks on another one
+                return answers.get(new AnswerKey(key, coinId, dataVersions.coinVersion(coinId)),
+                        (k, executor) -> CompletableFuture.supplyAsync(() -> makeApiRequest(coinId), outboundExecutor)
+                                .thenApplyAsync(coin -> generateCoinAnswer(prompt, call, coin), outboundExecutor));
+            });
+        } catch (RejectedExecutionException e) {
+            throw busy(e);
+        }
+        ApiResponse ans=new ApiResponse();
+        ans.setMessage(await(answer, answerDeadlineMs));
+        return ans;
+    }
 
-        FunctionResponse res=getFunctionResponse(prompt);
-        String apiResponse=makeApiRequest(res.getCurrencyName()).toString();
+    private String generateCoinAnswer(String prompt, FunctionResponse res, CoinDTO coin) {
+        String apiResponse=coin.toString();
 
 
 
@@ -174,6 +295,21 @@ public class ChatBotServiceImpl implements ChatBotService{
 
 
 
+        String body = coinAnswerRequestBody(prompt, res, apiResponse);
+
+
+
+        HttpEntity<String> request = new HttpEntity<>(body, headers);
+        ResponseEntity<String> response = restTemplate.postForEntity(GEMINI_API_URL, request, String.class);
+
+        System.out.println("Response: " + response.getBody());
+        ReadContext ctx = JsonPath.parse(response.getBody());
+
+        return ctx.read("$.candidates[0].content.parts[0].text");
+    }
+
+    // the original prompt, Gemini's function call and our function result, for the final answer
+    private String coinAnswerRequestBody(String prompt, FunctionResponse res, String apiResponse) {
 String body="{\n" +
         "  \"contents\": [\n" +
         "    {\n" +
@@ -282,21 +418,161 @@ String body="{\n" +
         "    }\n" +
         "  ]\n" +
         "}";
+        return body;
+    }
 
+    /**
+     * Streams the coin answer as SSE "token" events while Gemini generates it,
+     * then "done" (or "error"). The request thread returns at once; the stages
+     * run on the outbound executor:
+     * <ol>
+     *   <li>Gemini's function call, with a guessed coin's data fetched alongside
+     *       when the prompt names exactly one coin;</li>
+     *   <li>the tool call, unless the guess was right;</li>
+     *   <li>streamGenerateContent, relayed chunk by chunk.</li>
+     * </ol>
+     * A cached answer goes out as a single token. Past chatbot.stream.deadline-ms,
+     * or when the client goes away, the Gemini request is aborted.
+     */
+    @Override
+    public SseEmitter streamCoinDetails(String prompt) {
+        SseEmitter emitter = new SseEmitter(streamDeadlineMs);
+        CoinAnswerStream stream = new CoinAnswerStream(prompt, emitter);
+        emitter.onCompletion(stream::cancel);
+        emitter.onError(e -> stream.cancel());
+        emitter.onTimeout(() -> stream.fail("The answer took too long; please try again."));
+        stream.start();
+        return emitter;
+    }
 
+    private class CoinAnswerStream {
+        private final String prompt;
+        private final String key;
+        private final SseEmitter emitter;
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final AtomicReference<HttpPost> upstream = new AtomicReference<>();
+        // coin fetches of this stream; the cached function call is shared and never cancelled here
+        private final Queue<CompletableFuture<?>> fetches = new ConcurrentLinkedQueue<>();
+
+        CoinAnswerStream(String prompt, SseEmitter emitter) {
+            this.prompt = prompt;
+            this.key = normalizePrompt(prompt);
+            this.emitter = emitter;
+        }
 
-        HttpEntity<String> request = new HttpEntity<>(body, headers);
-        RestTemplate restTemplate = new RestTemplate();
-        ResponseEntity<String> response = restTemplate.postForEntity(GEMINI_API_URL, request, String.class);
+        void start() {
+            List<String> named = intentClassifier.classify(prompt).coinIds();
+            String guess = named.size() == 1 ? named.get(0) : null;
+            CompletableFuture<CoinDTO> guessed = guess == null ? null : fetchCoin(guess);
+
+            resolveFunctionCall(key, prompt)
+                    .thenCompose(call -> {
+                        String coinId = canonicalCoinId(call.getCurrencyName());
+                        boolean guessedRight = coinId.equals(guess);
+                        if (guessed != null && !guessedRight) guessed.cancel(true);
+                        if (finished.get()) return CompletableFuture.completedFuture(null);
+                        AnswerKey answerKey = new AnswerKey(key, coinId, dataVersions.coinVersion(coinId));
+                        String cached = answers.synchronous().getIfPresent(answerKey);
+                        if (cached != null) {
+                            if (guessed != null) guessed.cancel(true);
+                            send("token", cached);
+                            return CompletableFuture.completedFuture(null);
+                        }
+                        CompletableFuture<CoinDTO> coin = guessedRight ? guessed : fetchCoin(coinId);
+                        return coin.thenAcceptAsync(dto -> {
+                            String text = relay(coinAnswerRequestBody(prompt, call, dto.toString()));
+                            if (text != null) answers.synchronous().put(answerKey, text);
+                        }, outboundExecutor);
+                    })
+                    .whenComplete((ignored, error) -> {
+                        if (error == null) {
+                            finish();
+                        } else {
+                            System.err.println("Streaming coin answer failed: " + error);
+                            fail("I'm having trouble answering right now; please try again in a moment.");
+                        }
+                    });
+        }
 
-        System.out.println("Response: " + response.getBody());
-        ReadContext ctx = JsonPath.parse(response.getBody());
+        // posts to streamGenerateContent and forwards each text chunk; returns the
+        // whole answer, or null when the stream was cancelled part way
+        private String relay(String body) {
+            if (finished.get()) return null;
+            HttpPost post = new HttpPost(GEMINI_STREAM_URL + API_KEY);
+            post.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+            upstream.set(post);
+            if (finished.get()) return null;
+            try {
+                return httpClient.execute(post, response -> {
+                    if (response.getCode() >= 300) {
+                        throw new IOException("Gemini answered " + response.getCode());
+                    }
+                    StringBuilder answer = new StringBuilder();
+                    BufferedReader reader = new BufferedReader(
+                            new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (finished.get()) return null;
+                        if (!line.startsWith("data:")) continue;
+                        String token = chunkText(line.substring(5).trim());
+                        if (token == null || token.isEmpty()) continue;
+                        answer.append(token);
+                        send("token", token);
+                    }
+                    return answer.toString();
+                });
+            } catch (IOException e) {
+                if (finished.get()) return null;
+                throw new UncheckedIOException(e);
+            }
+        }
 
-        String text = ctx.read("$.candidates[0].content.parts[0].text");
-        ApiResponse ans=new ApiResponse();
-        ans.setMessage(text);
+        private String chunkText(String json) {
+            try {
+                return JsonPath.parse(json).read("$.candidates[0].content.parts[0].text");
+            } catch (PathNotFoundException e) {
+                return null;
+            }
+        }
 
-        return ans;
+        private void send(String event, String data) {
+            if (finished.get()) return;
+            try {
+                emitter.send(SseEmitter.event().name(event).data(data));
+            } catch (IOException e) {
+                // client went away
+                cancel();
+            }
+        }
+
+        private void finish() {
+            send("done", "");
+            if (finished.compareAndSet(false, true)) emitter.complete();
+        }
+
+        void fail(String message) {
+            send("error", message);
+            if (finished.compareAndSet(false, true)) {
+                abortUpstream();
+                emitter.complete();
+            }
+        }
+
+        void cancel() {
+            if (finished.compareAndSet(false, true)) abortUpstream();
+        }
+
+        private CompletableFuture<CoinDTO> fetchCoin(String coinId) {
+            CompletableFuture<CoinDTO> fetch = InterruptibleFuture.supplyAsync(() -> makeApiRequest(coinId), outboundExecutor);
+            fetches.add(fetch);
+            return fetch;
+        }
+
+        private void abortUpstream() {
+            fetches.forEach(fetch -> fetch.cancel(true));
+            HttpPost post = upstream.get();
+            if (post != null) post.cancel();
+        }
     }
 
     @Override
@@ -329,7 +605,6 @@ String body="{\n" +
         HttpEntity<String> requestEntity = new HttpEntity<>(requestBody.toString(), headers);
 
         // Make the POST request
-        RestTemplate restTemplate = new RestTemplate();
         ResponseEntity<String> response = restTemplate.postForEntity(GEMINI_API_URL, requestEntity, String.class);
 
 
@@ -0,0 +1,165 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+import com.anil.repository.CoinRepository;
+import com.anil.utils.KeywordMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Detects what a chatbot prompt asks about (price, trend, top, ...) and which
+ * coins it names, in one pass of a {@link KeywordMatcher} over the prompt.
+ *
+ * Coin aliases (id, symbol, name) come from the coins table for the top
+ * {@code chatbot.coin-aliases.max-rank} coins, are recompiled after every
+ * complete ingestion run, and start from a few built-in ones until the table has rows.
+ * Symbols and names that are ordinary words ("one", "gas", "up") or intent
+ * keywords are left out so they don't read as coins.
+ */
+@Component
+public class ChatIntentClassifier {
+
+    public static final String COIN = "coin";
+
+    public record Intent(Set<String> categories, List<String> coinIds) {
+    }
+
+    private record Term(String category, String coinId) {
+    }
+
+    // Keywords mapping for different types of queries. Matching is whole-word, so
+    // the inflected forms people actually type are listed next to each base form.
+    static final Map<String, List<String>> CATEGORY_KEYWORDS = new LinkedHashMap<>() {{
+        put("price", List.of("price", "prices", "priced", "pricing", "cost", "costs", "worth", "value", "values",
+                "rate", "rates", "trading at", "current price"));
+        put("trend", List.of("trend", "trends", "trending", "trended", "moving", "performance", "performing",
+                "going", "market", "markets", "direction"));
+        put("top", List.of("top", "best", "highest", "leading", "biggest", "largest", "most"));
+        put("gain", List.of("gain", "gains", "gainer", "gainers", "gaining", "increase", "increases", "increasing",
+                "increased", "up", "risen", "rising", "growth", "growing", "profit", "profits"));
+        put("loss", List.of("loss", "losses", "loser", "losers", "losing", "decrease", "decreases", "decreasing",
+                "decreased", "down", "fallen", "falling", "dropping", "dip", "dips", "crash", "crashing", "crashed"));
+        put("volume", List.of("volume", "volumes", "trading volume", "liquidity", "traded", "exchange volume"));
+        put("market_cap", List.of("market cap", "market caps", "capitalization", "market value", "valuation",
+                "valuations"));
+        put("wallet", List.of("wallet", "wallets", "store", "storing", "hold", "holding", "holdings", "keep",
+                "storage", "save"));
+        put("invest", List.of("invest", "investing", "invested", "investment", "investments", "buy", "buying",
+                "purchase", "trade", "trades", "trading"));
+    }};
+
+    // used until the coins table has been read
+    static final Map<String, String> BUILT_IN_ALIASES = new LinkedHashMap<>() {{
+        put("bitcoin", "bitcoin");
+        put("btc", "bitcoin");
+        put("ethereum", "ethereum");
+        put("eth", "ethereum");
+        put("usdt", "tether");
+        put("bnb", "binancecoin");
+        put("xrp", "ripple");
+        put("ada", "cardano");
+        put("doge", "dogecoin");
+    }};
+
+    private static final Set<String> COMMON_WORDS = Set.of(
+            "a", "i", "an", "the", "is", "it", "to", "in", "on", "at", "for", "of", "and", "or", "me", "my",
+            "we", "you", "your", "our", "all", "any", "can", "how", "what", "why", "who", "when", "now", "get",
+            "go", "new", "max", "pay", "fun", "win", "hot", "one", "key", "gas", "cat", "dog", "sun", "ant",
+            "ai", "usd", "coin", "token", "time", "big", "ok", "so", "yes", "no", "sell", "open", "real", "just",
+            "safe", "core", "life", "moon", "star", "gold", "near", "flow", "bit", "cash", "ray", "beam", "sand",
+            "chain", "link", "dash", "wave", "waves", "maker", "compound", "stacks", "render", "pendle", "celo");
+
+    @Autowired
+    private CoinRepository coinRepository;
+
+    @Value("${chatbot.coin-aliases.max-rank:250}")
+    private int maxRank = 250;
+
+    private volatile KeywordMatcher<Term> matcher = compile(BUILT_IN_ALIASES);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAliases() {
+        try {
+            List<CoinRepository.AliasView> rows = coinRepository.findByMarketCapRankBetweenOrderByMarketCapRankAsc(1, maxRank);
+            if (rows.isEmpty()) return;
+            Map<String, String> aliases = new LinkedHashMap<>();
+            for (CoinRepository.AliasView row : rows) {
+                addAliases(aliases, row.getId(), row.getSymbol(), row.getName());
+            }
+            matcher = compile(aliases);
+        } catch (RuntimeException e) {
+            System.err.println("Chat coin aliases not loaded from the coins table: " + e);
+        }
+    }
+
+    @EventListener
+    public void onMarketDataRefreshed(MarketDataRefreshedEvent event) {
+        // a partial run may lack ranked coins; keep the aliases of the last complete one
+        if (!event.complete()) return;
+        List<Coin> ranked = new ArrayList<>();
+        for (Coin coin : event.coins()) {
+            if (coin.getId() != null && coin.getMarketCapRank() > 0 && coin.getMarketCapRank() <= maxRank) {
+                ranked.add(coin);
+            }
+        }
+        if (ranked.isEmpty()) return;
+        // best-ranked coin keeps a contested alias
+        ranked.sort(Comparator.comparingInt(Coin::getMarketCapRank));
+        Map<String, String> aliases = new LinkedHashMap<>();
+        for (Coin coin : ranked) {
+            addAliases(aliases, coin.getId(), coin.getSymbol(), coin.getName());
+        }
+        matcher = compile(aliases);
+    }
+
+    public Intent classify(String prompt) {
+        Set<String> categories = new LinkedHashSet<>();
+        Set<String> coinIds = new LinkedHashSet<>();
+        matcher.forEachMatch(prompt, term -> {
+            categories.add(term.category());
+            if (term.coinId() != null) coinIds.add(term.coinId());
+        });
+        return new Intent(categories, new ArrayList<>(coinIds));
+    }
+
+    static void addAliases(Map<String, String> aliases, String id, String symbol, String name) {
+        aliases.putIfAbsent(id.toLowerCase(Locale.ROOT), id);
+        for (String alias : new String[]{symbol, name}) {
+            if (alias == null) continue;
+            String key = alias.toLowerCase(Locale.ROOT).trim();
+            if (key.length() < 2 || COMMON_WORDS.contains(key) || isCategoryKeyword(key)) continue;
+            aliases.putIfAbsent(key, id);
+        }
+    }
+
+    private static boolean isCategoryKeyword(String word) {
+        for (List<String> keywords : CATEGORY_KEYWORDS.values()) {
+            if (keywords.contains(word)) return true;
+        }
+        return false;
+    }
+
+    private static KeywordMatcher<Term> compile(Map<String, String> coinAliases) {
+        KeywordMatcher.Builder<Term> builder = KeywordMatcher.builder();
+        for (Map.Entry<String, List<String>> entry : CATEGORY_KEYWORDS.entrySet()) {
+            Term term = new Term(entry.getKey(), null);
+            for (String keyword : entry.getValue()) builder.add(keyword, term);
+        }
+        for (Map.Entry<String, String> alias : coinAliases.entrySet()) {
+            builder.add(alias.getKey(), new Term(COIN, alias.getValue()));
+        }
+        return builder.build();
+    }
+}
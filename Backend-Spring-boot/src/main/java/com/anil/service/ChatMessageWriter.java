@@ -0,0 +1,232 @@
+package com.anil.service;
+
+import com.anil.model.ChatMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind store for chat messages. Callers hand messages over and return
+ * at once; one writer thread inserts them in JDBC batches of up to
+ * chat.write-behind.batch-size, or whatever has arrived within
+ * chat.write-behind.flush-interval-ms of the batch's first message.
+ *
+ * Inserts go through JdbcTemplate rather than JPA: with IDENTITY keys Hibernate
+ * sends one statement per entity, whereas a JDBC batch (rewritten into
+ * multi-row inserts by rewriteBatchedStatements) is one round trip. Messages
+ * keep the created_at they were given on arrival, so history order does not
+ * depend on when they are written. Their ids are assigned by the database and
+ * are not set on the objects handed in.
+ *
+ * The queue is bounded. When it is full a caller waits up to
+ * chat.write-behind.enqueue-timeout-ms and then writes its message itself, so
+ * a slow database slows chat down instead of growing memory. On shutdown new
+ * messages are written inline and everything queued is flushed before the
+ * datasource goes away.
+ */
+@Service
+public class ChatMessageWriter {
+
+    static final String INSERT_SQL =
+            "insert into chat_messages (content, sender, message_type, created_at) values (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${chat.write-behind.capacity:10000}")
+    private int capacity = 10000;
+
+    @Value("${chat.write-behind.batch-size:200}")
+    private int batchSize = 200;
+
+    @Value("${chat.write-behind.flush-interval-ms:100}")
+    private long flushIntervalMs = 100;
+
+    @Value("${chat.write-behind.enqueue-timeout-ms:500}")
+    private long enqueueTimeoutMs = 500;
+
+    @Value("${chat.write-behind.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs = 10000;
+
+    private BlockingQueue<ChatMessage> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    // accepted into the queue / taken out of it and written (or given up on)
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    // readers park here on request threads; a monitor wait would pin a virtual thread's carrier
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private final Condition progress = progressLock.newCondition();
+
+    private Counter inline;
+    private Counter failed;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        Gauge.builder("chat.write-behind.queued", queue, BlockingQueue::size)
+                .description("Chat messages waiting to be written")
+                .register(meterRegistry);
+        inline = Counter.builder("chat.write-behind.inline")
+                .description("Chat messages written on the caller's thread because the queue was full or closed")
+                .register(meterRegistry);
+        failed = Counter.builder("chat.write-behind.failed")
+                .description("Chat messages that could not be written")
+                .register(meterRegistry);
+        running = true;
+        writer = new Thread(this::run, "chat-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        try {
+            writer.join(shutdownTimeoutMs);
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join(1000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // anything that slipped in after the writer's last look
+        List<ChatMessage> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) write(rest);
+    }
+
+    /** Queues {@code messages} for writing, in order, stamping created_at on any that lack one. */
+    public void enqueue(ChatMessage... messages) {
+        for (ChatMessage message : messages) {
+            if (message.getCreatedAt() == null) message.setCreatedAt(LocalDateTime.now());
+            boolean accepted = false;
+            if (running) {
+                try {
+                    accepted = queue.offer(message, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (accepted) {
+                enqueued.incrementAndGet();
+            } else {
+                inline.increment();
+                insert(List.of(message));
+            }
+        }
+    }
+
+    /**
+     * Waits up to {@code timeoutMs} for the messages queued before this call to
+     * be written, so a history read sees what the same user just sent.
+     * Returns false if they were not all written in time.
+     */
+    public boolean awaitWritten(long timeoutMs) {
+        long target = enqueued.get();
+        if (written.get() >= target) return true;
+        long left = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        progressLock.lock();
+        try {
+            while (written.get() < target) {
+                if (left <= 0) return false;
+                try {
+                    left = progress.awaitNanos(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        } finally {
+            progressLock.unlock();
+        }
+        return true;
+    }
+
+    private void run() {
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        boolean interrupted = false;
+        while (!interrupted && (running || !queue.isEmpty())) {
+            try {
+                ChatMessage first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || left <= 0 || !running) break;
+                    ChatMessage next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<ChatMessage> batch) {
+        insert(batch);
+        written.addAndGet(batch.size());
+        progressLock.lock();
+        try {
+            progress.signalAll();
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    private void insert(List<ChatMessage> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bind);
+        } catch (DataAccessException e) {
+            if (batch.size() == 1) {
+                System.err.println("Chat message not saved for " + batch.get(0).getSender() + ": " + e.getMessage());
+                failed.increment();
+                return;
+            }
+            // one bad row fails the whole batch; write the rest one by one
+            System.err.println("Chat batch of " + batch.size() + " failed, retrying row by row: " + e.getMessage());
+            for (ChatMessage message : batch) {
+                insert(List.of(message));
+            }
+        }
+    }
+
+    private void bind(PreparedStatement ps, ChatMessage message) throws SQLException {
+        ps.setString(1, message.getContent());
+        ps.setString(2, message.getSender());
+        ps.setString(3, message.getMessageType());
+        ps.setTimestamp(4, Timestamp.valueOf(message.getCreatedAt()));
+    }
+}
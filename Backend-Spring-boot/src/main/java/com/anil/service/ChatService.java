@@ -1,16 +1,36 @@
 package com.anil.service;
 
+import com.anil.domain.MarketDataPriority;
 import com.anil.model.ChatMessage;
 import com.anil.model.CoinChatMessage;
 import com.anil.repository.ChatMessageRepository;
+import com.anil.response.ChatHistoryPage;
+import com.anil.utils.ChatCursor;
+import com.anil.utils.InterruptibleFuture;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 @Service
@@ -19,25 +39,31 @@ public class ChatService {
     @Autowired
     private ChatMessageRepository chatMessageRepository;
 
-    @Value("${coingecko.api.key}")
-    private String coingeckoApiKey;
-
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final String COINGECKO_API_BASE = "https://api.coingecko.com/api/v3";
-
-    // Keywords mapping for different types of queries
-    private final Map<String, List<String>> queryKeywords = new HashMap<>() {{
-        put("price", Arrays.asList("price", "cost", "worth", "value", "rate", "trading at", "current price"));
-        put("trend", Arrays.asList("trend", "moving", "performance", "performing", "going", "market", "direction"));
-        put("top", Arrays.asList("top", "best", "highest", "leading", "biggest", "largest", "most"));
-        put("gain", Arrays.asList("gain", "increase", "up", "risen", "growth", "growing", "profit"));
-        put("loss", Arrays.asList("loss", "decrease", "down", "fallen", "dropping", "dip", "crash"));
-        put("volume", Arrays.asList("volume", "trading volume", "liquidity", "traded", "exchange volume"));
-        put("market_cap", Arrays.asList("market cap", "capitalization", "market value", "valuation"));
-        put("wallet", Arrays.asList("wallet", "store", "hold", "keep", "storage", "save"));
-        put("invest", Arrays.asList("invest", "buy", "purchase", "trade", "trading", "investment"));
-        put("coin", Arrays.asList("bitcoin", "btc", "eth", "ethereum", "usdt", "bnb", "xrp", "ada", "doge"));
-    }};
+    @Autowired
+    private ChatMessageWriter chatMessageWriter;
+
+    @Autowired
+    private MarketDataClient marketDataClient;
+
+    @Autowired
+    @Qualifier("outboundExecutor")
+    private AsyncTaskExecutor outboundExecutor;
+
+    // sections of a coin query still running after this are left out of the answer
+    @Value("${chatbot.query-deadline-ms:4000}")
+    private long queryDeadlineMs;
+
+    @Autowired
+    private ChatIntentClassifier intentClassifier;
+
+    @Value("${chat.history.page-size:50}")
+    private int historyPageSize;
+
+    @Value("${chat.history.max-page-size:200}")
+    private int historyMaxPageSize;
+
+    @Value("${chat.write-behind.read-wait-ms:1000}")
+    private long historyReadWaitMs;
 
     public ChatMessage processUserMessage(String content, String sender) {
         // Save user message
@@ -45,16 +71,61 @@ public class ChatService {
         userMessage.setContent(content);
         userMessage.setSender(sender);
         userMessage.setMessageType("USER");
-        chatMessageRepository.save(userMessage);
+        userMessage.setCreatedAt(LocalDateTime.now());
 
-        // Generate and save bot response
+        // Generate the bot response; both are written behind, in this order
         ChatMessage botResponse = generateBotResponse(content);
         botResponse.setSender(sender);
-        return chatMessageRepository.save(botResponse);
+        botResponse.setCreatedAt(LocalDateTime.now());
+        chatMessageWriter.enqueue(userMessage, botResponse);
+        return botResponse;
     }
 
+    /** The latest chat.history.page-size messages, oldest first. */
     public List<ChatMessage> getChatHistory(String sender) {
-        return chatMessageRepository.findBySenderOrderByCreatedAtAsc(sender);
+        return getChatHistoryPage(sender, null, null, null).getMessages();
+    }
+
+    /**
+     * One keyset page of {@code sender}'s history: the newest messages before
+     * {@code before}, the oldest after {@code after}, or the latest when neither
+     * cursor is given. Reads {@code limit} + 1 rows to know whether more exist.
+     */
+    public ChatHistoryPage getChatHistoryPage(String sender, String before, String after, Integer limit) {
+        if (before != null && after != null) {
+            throw new IllegalArgumentException("Pass either before or after, not both");
+        }
+        // include what this user just sent, still in the write-behind queue
+        chatMessageWriter.awaitWritten(historyReadWaitMs);
+        int size = limit == null ? historyPageSize : Math.max(1, Math.min(limit, historyMaxPageSize));
+        Limit fetch = Limit.of(size + 1);
+
+        if (after != null) {
+            ChatCursor from = ChatCursor.decode(after);
+            List<ChatMessage> rows = chatMessageRepository.findAfter(sender, from.createdAt(), from.id(), fetch);
+            List<ChatMessage> page = rows.size() > size ? rows.subList(0, size) : rows;
+            String newer = page.isEmpty() ? after : cursorOf(page.get(page.size() - 1));
+            String older = page.isEmpty() ? null : cursorOf(page.get(0));
+            return new ChatHistoryPage(new ArrayList<>(page), older, newer);
+        }
+
+        List<ChatMessage> rows;
+        if (before != null) {
+            ChatCursor to = ChatCursor.decode(before);
+            rows = chatMessageRepository.findBefore(sender, to.createdAt(), to.id(), fetch);
+        } else {
+            rows = chatMessageRepository.findLatest(sender, fetch);
+        }
+        boolean hasOlder = rows.size() > size;
+        List<ChatMessage> page = new ArrayList<>(hasOlder ? rows.subList(0, size) : rows);
+        Collections.reverse(page);
+        String older = hasOlder ? cursorOf(page.get(0)) : null;
+        String newer = page.isEmpty() ? before : cursorOf(page.get(page.size() - 1));
+        return new ChatHistoryPage(page, older, newer);
+    }
+
+    private static String cursorOf(ChatMessage message) {
+        return new ChatCursor(message.getCreatedAt(), message.getId()).encode();
     }
 
     private ChatMessage generateBotResponse(String userMessage) {
@@ -81,89 +152,230 @@ public class ChatService {
     
     public CoinChatMessage processCoinQuery(String prompt) {
         CoinChatMessage response = new CoinChatMessage();
-        String lowerCasePrompt = prompt.toLowerCase();
-        Set<String> detectedCategories = new HashSet<>();
-
-        // Detect query categories based on keywords
-        for (Map.Entry<String, List<String>> entry : queryKeywords.entrySet()) {
-            for (String keyword : entry.getValue()) {
-                if (lowerCasePrompt.contains(keyword.toLowerCase())) {
-                    detectedCategories.add(entry.getKey());
-                }
-            }
+
+        // Detect query categories and named coins in one pass over the prompt
+        ChatIntentClassifier.Intent intent = intentClassifier.classify(prompt);
+        Set<String> detectedCategories = intent.categories();
+
+        // Generate response based on detected categories
+        if (detectedCategories.isEmpty()) {
+            response.setMessage(getGeneralCryptoInfo(prompt));
+            return response;
         }
 
-        try {
-            // Generate response based on detected categories
-            if (detectedCategories.isEmpty()) {
-                response.setMessage(getGeneralCryptoInfo(prompt));
-                return response;
+        Map<String, Section> sections = plan(intent);
+        if (sections.isEmpty()) {
+            response.setMessage(getGeneralCryptoInfo(prompt));
+            return response;
+        }
+
+        StringBuilder result = new StringBuilder();
+        int missing = collect(sections.values(), result);
+
+        if (result.length() == 0) {
+            response.setMessage("I apologize, but I'm having trouble fetching the latest cryptocurrency data. Please try again in a moment.");
+        } else {
+            if (missing > 0) {
+                result.append("(Some of the requested market data could not be loaded in time and was left out.)\n");
             }
+            response.setMessage(result.toString());
+        }
+        return response;
+    }
 
-            StringBuilder result = new StringBuilder();
+    /**
+     * Streaming variant of {@link #processCoinQuery}: every section starts at once
+     * and is sent as a "section" event as soon as it and the ones before it are
+     * in, followed by "done". Sections still running after chatbot.query-deadline-ms
+     * are dropped and noted, as in the blocking variant, but no thread waits on
+     * them; a client that disconnects cancels whatever is still running.
+     */
+    public SseEmitter streamCoinQuery(String prompt) {
+        SseEmitter emitter = new SseEmitter(queryDeadlineMs + 1000);
+        ChatIntentClassifier.Intent intent = intentClassifier.classify(prompt);
+        Map<String, Section> sections = intent.categories().isEmpty() ? Map.of() : plan(intent);
+        if (sections.isEmpty()) {
+            sections = Map.of("general", new Section(() -> getGeneralCryptoInfo(prompt), ""));
+        }
 
-            // Handle price queries for specific coins
-            if (detectedCategories.contains("price") && detectedCategories.contains("coin")) {
-                for (String coinKeyword : queryKeywords.get("coin")) {
-                    if (lowerCasePrompt.contains(coinKeyword)) {
-                        result.append(getCoinPrice(mapCoinKeywordToId(coinKeyword))).append("\n\n");
+        List<CompletableFuture<String>> futures = new ArrayList<>(sections.size());
+        for (Section section : sections.values()) {
+            CompletableFuture<String> future = start(section).orTimeout(queryDeadlineMs, TimeUnit.MILLISECONDS);
+            // a section past the deadline is stopped, not just left out
+            future.whenComplete((text, error) -> {
+                if (error != null) future.cancel(true);
+            });
+            futures.add(future);
+        }
+        Runnable cancelAll = () -> futures.forEach(f -> f.cancel(true));
+        emitter.onCompletion(cancelAll);
+        emitter.onTimeout(cancelAll);
+        emitter.onError(e -> cancelAll.run());
+
+        // sent strictly in plan order: each step waits (without blocking) for the previous one
+        AtomicInteger sent = new AtomicInteger();
+        AtomicInteger missing = new AtomicInteger();
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        int i = 0;
+        for (Section section : sections.values()) {
+            CompletableFuture<String> future = futures.get(i++);
+            chain = chain.thenCompose(ignored -> future.handle((text, error) -> {
+                if (error != null) {
+                    if (!(unwrap(error) instanceof TimeoutException || future.isCancelled())) {
+                        System.err.println("Chat sub-query failed: " + unwrap(error));
                     }
+                    missing.incrementAndGet();
+                } else if (send(emitter, "section", text + section.separator())) {
+                    sent.incrementAndGet();
                 }
+                return null;
+            }));
+        }
+        chain.whenComplete((ignored, error) -> {
+            if (sent.get() == 0) {
+                send(emitter, "section", "I apologize, but I'm having trouble fetching the latest cryptocurrency data. Please try again in a moment.");
+            } else if (missing.get() > 0) {
+                send(emitter, "section", "(Some of the requested market data could not be loaded in time and was left out.)\n");
             }
+            send(emitter, "done", "");
+            emitter.complete();
+        });
+        return emitter;
+    }
 
-            // Handle top gainers/losers
-            if ((detectedCategories.contains("top") || detectedCategories.contains("best")) && 
-                (detectedCategories.contains("gain") || detectedCategories.contains("loss"))) {
-                result.append(getTopPerformers()).append("\n");
+    private CompletableFuture<String> start(Section section) {
+        Supplier<String> fetch = () -> {
+            try {
+                return section.fetch().call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
             }
-
-            // Handle market trends
-            if (detectedCategories.contains("trend")) {
-                result.append(getMarketOverview()).append("\n");
+        };
+        try {
+            return InterruptibleFuture.supplyAsync(fetch, outboundExecutor);
+        } catch (TaskRejectedException e) {
+            // pool saturated: run it on the request thread instead
+            CompletableFuture<String> inline = new CompletableFuture<>();
+            try {
+                inline.complete(fetch.get());
+            } catch (CompletionException failed) {
+                inline.completeExceptionally(failed.getCause());
             }
+            return inline;
+        }
+    }
 
-            // Handle volume queries
-            if (detectedCategories.contains("volume")) {
-                result.append(getTopVolumeCoins()).append("\n");
-            }
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
 
-            // Handle market cap queries
-            if (detectedCategories.contains("market_cap")) {
-                result.append(getTopMarketCap()).append("\n");
-            }
+    private static boolean send(SseEmitter emitter, String event, String data) {
+        try {
+            emitter.send(SseEmitter.event().name(event).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // client went away or the emitter already completed
+            return false;
+        }
+    }
 
-            // Handle investment advice
-            if (detectedCategories.contains("invest")) {
-                result.append(getInvestmentAdvice()).append("\n");
-            }
+    // independent sections for the detected intent, keyed by what they fetch so nothing is fetched twice
+    private Map<String, Section> plan(ChatIntentClassifier.Intent intent) {
+        Set<String> detectedCategories = intent.categories();
+        Map<String, Section> sections = new LinkedHashMap<>();
 
-            // Handle wallet queries
-            if (detectedCategories.contains("wallet")) {
-                result.append(getWalletInfo()).append("\n");
+        // Handle price queries for specific coins
+        if (detectedCategories.contains("price") && detectedCategories.contains("coin")) {
+            for (String coinId : intent.coinIds()) {
+                sections.putIfAbsent("price:" + coinId, new Section(() -> getCoinPrice(coinId), "\n\n"));
             }
+        }
 
-            // If no specific category matched but contains coin name, provide comprehensive info
-            if (detectedCategories.contains("coin") && result.length() == 0) {
-                for (String coinKeyword : queryKeywords.get("coin")) {
-                    if (lowerCasePrompt.contains(coinKeyword)) {
-                        result.append(getComprehensiveCoinInfo(mapCoinKeywordToId(coinKeyword))).append("\n\n");
-                    }
-                }
+        // Handle top gainers/losers
+        if ((detectedCategories.contains("top") || detectedCategories.contains("best")) &&
+            (detectedCategories.contains("gain") || detectedCategories.contains("loss"))) {
+            sections.put("top", new Section(this::getTopPerformers, "\n"));
+        }
+
+        // Handle market trends
+        if (detectedCategories.contains("trend")) {
+            sections.put("trend", new Section(this::getMarketOverview, "\n"));
+        }
+
+        // Handle volume queries
+        if (detectedCategories.contains("volume")) {
+            sections.put("volume", new Section(this::getTopVolumeCoins, "\n"));
+        }
+
+        // Handle market cap queries
+        if (detectedCategories.contains("market_cap")) {
+            sections.put("market_cap", new Section(this::getTopMarketCap, "\n"));
+        }
+
+        // Handle investment advice
+        if (detectedCategories.contains("invest")) {
+            sections.put("invest", new Section(this::getInvestmentAdvice, "\n"));
+        }
+
+        // Handle wallet queries
+        if (detectedCategories.contains("wallet")) {
+            sections.put("wallet", new Section(this::getWalletInfo, "\n"));
+        }
+
+        // If no specific category matched but contains coin name, provide comprehensive info
+        if (detectedCategories.contains("coin") && sections.isEmpty()) {
+            for (String coinId : intent.coinIds()) {
+                sections.putIfAbsent("info:" + coinId, new Section(() -> getComprehensiveCoinInfo(coinId), "\n\n"));
             }
+        }
 
-            response.setMessage(result.length() > 0 ? result.toString() : getGeneralCryptoInfo(prompt));
-            return response;
+        return sections;
+    }
 
-        } catch (Exception e) {
-            response.setMessage("I apologize, but I'm having trouble fetching the latest cryptocurrency data. Please try again in a moment.");
-            return response;
+    private record Section(Callable<String> fetch, String separator) {
+    }
+
+    // runs every section concurrently and appends, in order, those that finish before the
+    // query deadline; returns how many failed or ran out of time
+    private int collect(Collection<Section> sections, StringBuilder result) {
+        List<Future<String>> futures = new ArrayList<>(sections.size());
+        for (Section section : sections) {
+            try {
+                futures.add(outboundExecutor.submit(section.fetch()));
+            } catch (TaskRejectedException e) {
+                // pool saturated: run it on the request thread instead
+                FutureTask<String> task = new FutureTask<>(section.fetch());
+                task.run();
+                futures.add(task);
+            }
         }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(queryDeadlineMs);
+        int missing = 0;
+        int i = 0;
+        for (Section section : sections) {
+            Future<String> future = futures.get(i++);
+            try {
+                String text = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                result.append(text).append(section.separator());
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                missing++;
+            } catch (ExecutionException e) {
+                System.err.println("Chat sub-query failed: " + e.getCause());
+                missing++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                missing++;
+            }
+        }
+        return missing;
     }
 
     private String getComprehensiveCoinInfo(String coinId) {
         try {
-            String url = COINGECKO_API_BASE + "/coins/" + coinId + "?localization=false&tickers=false&community_data=false&developer_data=false";
-            String response = restTemplate.getForObject(url, String.class);
+            String response = marketDataClient.get("/coins/" + coinId + "?localization=false&tickers=false&community_data=false&developer_data=false", MarketDataPriority.CHATBOT);
             JSONObject coin = new JSONObject(response);
 
             JSONObject marketData = coin.getJSONObject("market_data");
@@ -190,19 +402,6 @@ public class ChatService {
         }
     }
 
-    private String mapCoinKeywordToId(String keyword) {
-        Map<String, String> coinMapping = new HashMap<>() {{
-            put("btc", "bitcoin");
-            put("eth", "ethereum");
-            put("usdt", "tether");
-            put("bnb", "binance-coin");
-            put("xrp", "ripple");
-            put("ada", "cardano");
-            put("doge", "dogecoin");
-        }};
-        return coinMapping.getOrDefault(keyword.toLowerCase(), keyword.toLowerCase());
-    }
-
     private String getInvestmentAdvice() {
         return "Cryptocurrency Investment Guidelines:\n\n" +
                "1. Research & Due Diligence:\n" +
@@ -244,8 +443,7 @@ public class ChatService {
     }
 
     private String getTopPerformers() {
-        String url = COINGECKO_API_BASE + "/coins/markets?vs_currency=usd&order=price_change_percentage_24h_desc&per_page=5&page=1&sparkline=false";
-        String response = restTemplate.getForObject(url, String.class);
+        String response = marketDataClient.get("/coins/markets?vs_currency=usd&order=price_change_percentage_24h_desc&per_page=5&page=1&sparkline=false", MarketDataPriority.CHATBOT);
         
         JSONArray coins = new JSONArray(response);
         StringBuilder result = new StringBuilder("Top performing cryptocurrencies in the last 24 hours:\n\n");
@@ -263,8 +461,7 @@ public class ChatService {
     }
 
     private String getCoinPrice(String coinId) {
-        String url = COINGECKO_API_BASE + "/simple/price?ids=" + coinId + "&vs_currencies=usd&include_24hr_change=true&include_market_cap=true";
-        String response = restTemplate.getForObject(url, String.class);
+        String response = marketDataClient.get("/simple/price?ids=" + coinId + "&vs_currencies=usd&include_24hr_change=true&include_market_cap=true", MarketDataPriority.CHATBOT);
         
         JSONObject data = new JSONObject(response);
         JSONObject coinData = data.getJSONObject(coinId);
@@ -278,8 +475,7 @@ public class ChatService {
 
     private String getMarketOverview() {
         try {
-            String url = COINGECKO_API_BASE + "/global";
-            String response = restTemplate.getForObject(url, String.class);
+            String response = marketDataClient.get("/global", MarketDataPriority.CHATBOT);
             
             JSONObject data = new JSONObject(response).getJSONObject("data");
             JSONObject totalMarketCap = data.getJSONObject("total_market_cap");
@@ -309,8 +505,7 @@ public class ChatService {
     }
 
     private String getTopVolumeCoins() {
-        String url = COINGECKO_API_BASE + "/coins/markets?vs_currency=usd&order=volume_desc&per_page=5&page=1&sparkline=false";
-        String response = restTemplate.getForObject(url, String.class);
+        String response = marketDataClient.get("/coins/markets?vs_currency=usd&order=volume_desc&per_page=5&page=1&sparkline=false", MarketDataPriority.CHATBOT);
         
         JSONArray coins = new JSONArray(response);
         StringBuilder result = new StringBuilder("Top cryptocurrencies by 24h trading volume:\n\n");
@@ -328,8 +523,7 @@ public class ChatService {
     }
 
     private String getTopMarketCap() {
-        String url = COINGECKO_API_BASE + "/coins/markets?vs_currency=usd&order=market_cap_desc&per_page=5&page=1&sparkline=false";
-        String response = restTemplate.getForObject(url, String.class);
+        String response = marketDataClient.get("/coins/markets?vs_currency=usd&order=market_cap_desc&per_page=5&page=1&sparkline=false", MarketDataPriority.CHATBOT);
         
         JSONArray coins = new JSONArray(response);
         StringBuilder result = new StringBuilder("Top cryptocurrencies by market capitalization:\n\n");
@@ -0,0 +1,169 @@
+package com.anil.service;
+
+import com.anil.domain.MarketDataPriority;
+import com.anil.model.Coin;
+import com.anil.model.CoinDTO;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Typed per-coin view behind the chatbot's getCoinDetails tool call. Coins in
+ * the ingested universe are answered from the last ingestion run, the same
+ * /coins/markets data the REST endpoints serve, without an upstream call.
+ * Other coins are fetched once per chatbot.coin-details.ttl-seconds through a
+ * snapshot-cache region, asking /coins/{id} for market data only.
+ */
+@Component
+public class CoinDetailsView {
+
+    // /coins/{id} without descriptions in every language, tickers, community and developer stats
+    static final String LEAN_QUERY =
+            "?localization=false&tickers=false&community_data=false&developer_data=false&sparkline=false";
+
+    @Autowired
+    private MarketDataClient marketDataClient;
+
+    @Autowired
+    private MarketSnapshotCache marketSnapshotCache;
+
+    @Value("${chatbot.coin-details.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${chatbot.coin-details.max-entries:1000}")
+    private long maxEntries;
+
+    // replaced wholesale after each complete ingestion run
+    private volatile Map<String, CoinDTO> ingested = Map.of();
+
+    private MarketSnapshotCache.Region<String, CoinDTO> fetched;
+
+    @PostConstruct
+    void init() {
+        fetched = marketSnapshotCache.region("chatbot.coin-details", ttlSeconds, maxEntries, this::fetch);
+    }
+
+    @EventListener
+    public void onMarketDataRefreshed(MarketDataRefreshedEvent event) {
+        // a partial run only updates what it saw; coins on the failed page keep their last values
+        Map<String, CoinDTO> view = event.complete() ? new HashMap<>(event.coins().size() * 2) : new HashMap<>(ingested);
+        for (Coin coin : event.coins()) {
+            if (coin.getId() != null) view.put(coin.getId(), toDto(coin));
+        }
+        ingested = view;
+    }
+
+    /** Details of {@code coinId}; null when upstream has no body for it. */
+    public CoinDTO find(String coinId) {
+        String id = coinId.trim().toLowerCase(Locale.ROOT);
+        CoinDTO coin = ingested.get(id);
+        if (coin != null) return coin;
+        try {
+            return fetched.get(id);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Coin details for " + id + " could not be loaded", e);
+        }
+    }
+
+    private CoinDTO fetch(String coinId) {
+        CoinDetailsBody body = marketDataClient.get("/coins/" + coinId + LEAN_QUERY, CoinDetailsBody.class,
+                MarketDataPriority.CHATBOT);
+        return body == null ? null : toDto(body);
+    }
+
+    static CoinDTO toDto(Coin coin) {
+        CoinDTO dto = new CoinDTO();
+        dto.setId(coin.getId());
+        dto.setSymbol(coin.getSymbol());
+        dto.setName(coin.getName());
+        dto.setImage(coin.getImage());
+        dto.setCurrentPrice(coin.getCurrentPrice());
+        dto.setMarketCap(coin.getMarketCap());
+        dto.setMarketCapRank(coin.getMarketCapRank());
+        dto.setTotalVolume(coin.getTotalVolume());
+        dto.setHigh24h(coin.getHigh24h());
+        dto.setLow24h(coin.getLow24h());
+        dto.setPriceChange24h(coin.getPriceChange24h());
+        dto.setPriceChangePercentage24h(coin.getPriceChangePercentage24h());
+        dto.setMarketCapChange24h(coin.getMarketCapChange24h());
+        dto.setMarketCapChangePercentage24h(coin.getMarketCapChangePercentage24h());
+        dto.setCirculatingSupply(coin.getCirculatingSupply());
+        dto.setTotalSupply(coin.getTotalSupply());
+        dto.setLastUpdated(coin.getLastUpdated());
+        return dto;
+    }
+
+    static CoinDTO toDto(CoinDetailsBody body) {
+        CoinDTO dto = new CoinDTO();
+        dto.setId(body.id());
+        dto.setSymbol(body.symbol());
+        dto.setName(body.name());
+        if (body.image() != null) dto.setImage(body.image().large());
+        if (body.marketCapRank() != null) dto.setMarketCapRank(body.marketCapRank());
+        dto.setLastUpdated(body.lastUpdated());
+        MarketData market = body.marketData();
+        if (market != null) {
+            dto.setCurrentPrice(Usd.of(market.currentPrice()));
+            dto.setMarketCap(Usd.of(market.marketCap()));
+            dto.setTotalVolume(Usd.of(market.totalVolume()));
+            dto.setHigh24h(Usd.of(market.high24h()));
+            dto.setLow24h(Usd.of(market.low24h()));
+            dto.setPriceChange24h(orZero(market.priceChange24h()));
+            dto.setPriceChangePercentage24h(orZero(market.priceChangePercentage24h()));
+            dto.setMarketCapChange24h(orZero(market.marketCapChange24h()));
+            dto.setMarketCapChangePercentage24h(orZero(market.marketCapChangePercentage24h()));
+            dto.setCirculatingSupply(orZero(market.circulatingSupply()));
+            dto.setTotalSupply(orZero(market.totalSupply()));
+        }
+        return dto;
+    }
+
+    private static double orZero(Double value) {
+        return value == null ? 0 : value;
+    }
+
+    // the parts of the /coins/{id} body the chatbot uses; everything else is skipped while parsing
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record CoinDetailsBody(String id, String symbol, String name, Image image,
+                           @JsonProperty("market_cap_rank") Integer marketCapRank,
+                           @JsonProperty("market_data") MarketData marketData,
+                           @JsonProperty("last_updated") Date lastUpdated) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Image(String large) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record MarketData(@JsonProperty("current_price") Usd currentPrice,
+                      @JsonProperty("market_cap") Usd marketCap,
+                      @JsonProperty("total_volume") Usd totalVolume,
+                      @JsonProperty("high_24h") Usd high24h,
+                      @JsonProperty("low_24h") Usd low24h,
+                      @JsonProperty("price_change_24h") Double priceChange24h,
+                      @JsonProperty("price_change_percentage_24h") Double priceChangePercentage24h,
+                      @JsonProperty("market_cap_change_24h") Double marketCapChange24h,
+                      @JsonProperty("market_cap_change_percentage_24h") Double marketCapChangePercentage24h,
+                      @JsonProperty("circulating_supply") Double circulatingSupply,
+                      @JsonProperty("total_supply") Double totalSupply) {
+    }
+
+    // per-currency amounts; only usd is read
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Usd(Double usd) {
+        static double of(Usd amount) {
+            return amount == null || amount.usd() == null ? 0 : amount.usd();
+        }
+    }
+}
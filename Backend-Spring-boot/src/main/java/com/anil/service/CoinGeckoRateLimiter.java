@@ -0,0 +1,183 @@
+package com.anil.service;
+
+import com.anil.domain.MarketDataPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client-side governor for the CoinGecko quota. A token bucket sized to the plan
+ * hands out permits in {@link MarketDataPriority} order, so price refreshes are
+ * never stuck behind chatbot or widget lookups.
+ *
+ * On a 429 the bucket pauses until Retry-After has passed and halves its rate;
+ * each later success wins back a slice of the configured rate.
+ */
+@Component
+public class CoinGeckoRateLimiter {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${market-data.rate-limit.requests-per-minute:30}")
+    private double requestsPerMinute;
+
+    @Value("${market-data.rate-limit.burst:5}")
+    private int burst;
+
+    @Value("${market-data.rate-limit.max-wait-ms:10000}")
+    private long maxWaitMs;
+
+    @Value("${market-data.rate-limit.default-retry-after-seconds:60}")
+    private long defaultRetryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Waiter> queue = new PriorityQueue<>(
+            Comparator.comparingInt((Waiter w) -> w.priority.ordinal()).thenComparingLong(w -> w.seq));
+
+    private long seq;
+    private double tokens;
+    private double ratePerNano;
+    private double baseRatePerNano;
+    private long lastRefill;
+    private long pausedUntil;
+
+    private Counter throttledLocally;
+    private Counter upstream429;
+
+    @PostConstruct
+    void init() {
+        baseRatePerNano = requestsPerMinute / TimeUnit.MINUTES.toNanos(1);
+        ratePerNano = baseRatePerNano;
+        tokens = burst;
+        lastRefill = System.nanoTime();
+
+        Gauge.builder("market.ratelimit.queue.depth", this, l -> l.queueDepth())
+                .description("Requests waiting for a CoinGecko permit")
+                .register(meterRegistry);
+        Gauge.builder("market.ratelimit.rate.per.minute", this, l -> l.ratePerNano * TimeUnit.MINUTES.toNanos(1))
+                .description("Current adaptive CoinGecko request rate")
+                .register(meterRegistry);
+        throttledLocally = Counter.builder("market.ratelimit.throttled")
+                .description("Requests rejected after waiting max-wait-ms for a permit")
+                .register(meterRegistry);
+        upstream429 = Counter.builder("market.ratelimit.upstream429")
+                .description("429 responses received from CoinGecko")
+                .register(meterRegistry);
+    }
+
+    public void acquire(MarketDataPriority priority) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        lock.lock();
+        try {
+            Waiter self = new Waiter(priority, seq++);
+            queue.add(self);
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    refill(now);
+                    if (queue.peek() == self && now >= pausedUntil && tokens >= 1) {
+                        tokens -= 1;
+                        return;
+                    }
+                    long remaining = deadline - now;
+                    if (remaining <= 0) {
+                        throttledLocally.increment();
+                        throw new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS, "CoinGecko request budget exhausted");
+                    }
+                    changed.awaitNanos(Math.min(remaining, nanosUntilPermit(now)));
+                }
+            } finally {
+                queue.remove(self);
+                changed.signalAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS, "Interrupted while waiting for CoinGecko budget");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            ratePerNano = Math.min(baseRatePerNano, ratePerNano + baseRatePerNano / 20);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onTooManyRequests(String retryAfter) {
+        upstream429.increment();
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            refill(now);
+            pausedUntil = Math.max(pausedUntil, now + parseRetryAfter(retryAfter).toNanos());
+            ratePerNano = Math.max(baseRatePerNano / 8, ratePerNano / 2);
+            tokens = 0;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int queueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+    }
+
+    private long nanosUntilPermit(long now) {
+        long untilResume = Math.max(0, pausedUntil - now);
+        long untilToken = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / ratePerNano);
+        // at least 1ms so a waiter behind the head re-checks after the head consumes
+        return Math.max(TimeUnit.MILLISECONDS.toNanos(1), Math.max(untilResume, untilToken));
+    }
+
+    private Duration parseRetryAfter(String retryAfter) {
+        if (retryAfter != null && !retryAfter.isBlank()) {
+            try {
+                return Duration.ofSeconds(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException ignored) {
+                try {
+                    ZonedDateTime at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                    Duration wait = Duration.between(ZonedDateTime.now(at.getZone()), at);
+                    if (!wait.isNegative()) return wait;
+                } catch (DateTimeParseException ignoredToo) {
+                    // fall through to the default
+                }
+            }
+        }
+        return Duration.ofSeconds(defaultRetryAfterSeconds);
+    }
+
+    private record Waiter(MarketDataPriority priority, long seq) {
+    }
+}
@@ -0,0 +1,104 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Token-level reader for /coins/markets arrays. Binds the fields {@link Coin}
+ * keeps and skips everything else (roi, sparkline, price_change_percentage_*_in_currency)
+ * without building a String or a JsonNode tree.
+ */
+public class CoinMarketsReader implements MarketDataClient.BodyReader<List<Coin>> {
+
+    public static final CoinMarketsReader INSTANCE = new CoinMarketsReader();
+
+    @Override
+    public List<Coin> read(JsonParser parser) throws IOException {
+        List<Coin> coins = new ArrayList<>();
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            return coins;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            coins.add(readCoin(parser));
+        }
+        return coins;
+    }
+
+    private Coin readCoin(JsonParser parser) throws IOException {
+        Coin coin = new Coin();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "id" -> coin.setId(parser.getValueAsString());
+                case "symbol" -> coin.setSymbol(parser.getValueAsString());
+                case "name" -> coin.setName(parser.getValueAsString());
+                case "image" -> coin.setImage(parser.getValueAsString());
+                case "current_price" -> coin.setCurrentPrice(parser.getValueAsDouble());
+                case "market_cap" -> coin.setMarketCap(parser.getValueAsLong());
+                case "market_cap_rank" -> coin.setMarketCapRank(parser.getValueAsInt());
+                case "fully_diluted_valuation" -> coin.setFullyDilutedValuation(parser.getValueAsLong());
+                case "total_volume" -> coin.setTotalVolume(parser.getValueAsLong());
+                case "high_24h" -> coin.setHigh24h(parser.getValueAsDouble());
+                case "low_24h" -> coin.setLow24h(parser.getValueAsDouble());
+                case "price_change_24h" -> coin.setPriceChange24h(parser.getValueAsDouble());
+                case "price_change_percentage_24h" -> coin.setPriceChangePercentage24h(parser.getValueAsDouble());
+                case "market_cap_change_24h" -> coin.setMarketCapChange24h(parser.getValueAsLong());
+                case "market_cap_change_percentage_24h" -> coin.setMarketCapChangePercentage24h(parser.getValueAsDouble());
+                case "circulating_supply" -> coin.setCirculatingSupply(parser.getValueAsLong());
+                case "total_supply" -> coin.setTotalSupply(parser.getValueAsLong());
+                case "max_supply" -> coin.setMaxSupply(parser.getValueAsLong());
+                case "ath" -> coin.setAth(parser.getValueAsDouble());
+                case "ath_change_percentage" -> coin.setAthChangePercentage(parser.getValueAsDouble());
+                case "ath_date" -> coin.setAthDate(date(parser));
+                case "atl" -> coin.setAtl(parser.getValueAsDouble());
+                case "atl_change_percentage" -> coin.setAtlChangePercentage(parser.getValueAsDouble());
+                case "atl_date" -> coin.setAtlDate(date(parser));
+                case "last_updated" -> coin.setLastUpdated(date(parser));
+                default -> {
+                    if (token.isStructStart()) parser.skipChildren();
+                }
+            }
+        }
+        return coin;
+    }
+
+    // CoinGecko always sends "yyyy-MM-ddTHH:mm:ss.SSSZ"; read it from the parser's
+    // char buffer instead of going through a String and DateTimeFormatter
+    private Date date(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_STRING) return null;
+        char[] c = parser.getTextCharacters();
+        int o = parser.getTextOffset();
+        int length = parser.getTextLength();
+        if (length == 24 && c[o + 4] == '-' && c[o + 10] == 'T' && c[o + 19] == '.' && c[o + 23] == 'Z') {
+            int year = digits(c, o, 4);
+            int month = digits(c, o + 5, 2);
+            int day = digits(c, o + 8, 2);
+            long seconds = digits(c, o + 11, 2) * 3600L + digits(c, o + 14, 2) * 60L + digits(c, o + 17, 2);
+            long epochDay = LocalDate.of(year, month, day).toEpochDay();
+            return new Date((epochDay * 86_400L + seconds) * 1000L + digits(c, o + 20, 3));
+        }
+        try {
+            return Date.from(Instant.parse(parser.getText()));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private int digits(char[] c, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            value = value * 10 + (c[i] - '0');
+        }
+        return value;
+    }
+}
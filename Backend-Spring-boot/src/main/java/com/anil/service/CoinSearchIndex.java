@@ -0,0 +1,183 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typeahead index over the ingested coin universe. Every coin is reachable
+ * through a prefix trie on its id, symbol, full name and each word of its
+ * name; each trie node lists the coins below it, so a query is one walk down
+ * the trie plus a top-N pass over that node's list.
+ *
+ * Coins are added to the trie the first time ingestion sees them; later runs
+ * only swap in the fresh {@link Coin} so ranking follows the current market cap.
+ */
+@Component
+public class CoinSearchIndex {
+
+    private static class Node {
+        final Map<Character, Node> children = new HashMap<>(4);
+        final List<Entry> entries = new ArrayList<>(2);
+    }
+
+    private static class Entry {
+        final String id;
+        final String symbol;
+        final String name;
+        volatile Coin coin;
+
+        Entry(Coin coin) {
+            this.id = normalize(coin.getId());
+            this.symbol = normalize(coin.getSymbol());
+            this.name = normalize(coin.getName());
+            this.coin = coin;
+        }
+
+        // 0 exact symbol/id, 1 symbol prefix, 2 exact name, 3 anything else that reached this node
+        int tier(String query) {
+            if (query.equals(symbol) || query.equals(id)) return 0;
+            if (symbol.startsWith(query)) return 1;
+            if (query.equals(name)) return 2;
+            return 3;
+        }
+
+        int rank() {
+            int rank = coin.getMarketCapRank();
+            return rank > 0 ? rank : Integer.MAX_VALUE;
+        }
+    }
+
+    private final Node root = new Node();
+    private final Map<String, Entry> byId = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Value("${market-data.search.max-results:25}")
+    private int maxResults = 25;
+
+    @EventListener
+    public void onMarketDataRefreshed(MarketDataRefreshedEvent event) {
+        index(event.coins());
+    }
+
+    public void index(List<Coin> coins) {
+        List<Coin> added = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Coin coin : coins) {
+                if (coin.getId() == null) continue;
+                Entry entry = byId.get(coin.getId());
+                if (entry == null) {
+                    added.add(coin);
+                } else {
+                    entry.coin = coin;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (added.isEmpty()) return;
+
+        lock.writeLock().lock();
+        try {
+            for (Coin coin : added) {
+                if (byId.containsKey(coin.getId())) continue;
+                Entry entry = new Entry(coin);
+                byId.put(coin.getId(), entry);
+                insert(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return byId.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Best matches for {@code query}, best first; empty when nothing local matches. */
+    public List<Coin> search(String query) {
+        String q = normalize(query);
+        if (q.isEmpty()) return Collections.emptyList();
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < q.length() && node != null; i++) {
+                node = node.children.get(q.charAt(i));
+            }
+            if (node == null) return Collections.emptyList();
+            return best(node.entries, q);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Coin> best(List<Entry> entries, String q) {
+        record Scored(int tier, int rank, Coin coin) {
+        }
+        Comparator<Scored> better = Comparator.comparingInt(Scored::tier).thenComparingInt(Scored::rank);
+        // worst of the kept matches on top, evicted when a better one arrives
+        PriorityQueue<Scored> kept = new PriorityQueue<>(maxResults + 1, better.reversed());
+        for (Entry entry : entries) {
+            Coin coin = entry.coin;
+            kept.add(new Scored(entry.tier(q), entry.rank(), coin));
+            if (kept.size() > maxResults) kept.poll();
+        }
+        Scored[] sorted = kept.toArray(new Scored[0]);
+        Arrays.sort(sorted, better);
+        List<Coin> coins = new ArrayList<>(sorted.length);
+        for (Scored scored : sorted) coins.add(scored.coin());
+        return coins;
+    }
+
+    private void insert(Entry entry) {
+        // a node reached through several terms (id "bitcoin", name "bitcoin") lists the coin once
+        Set<Node> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (String term : terms(entry)) {
+            Node node = root;
+            for (int i = 0; i < term.length(); i++) {
+                node = node.children.computeIfAbsent(term.charAt(i), c -> new Node());
+                if (touched.add(node)) node.entries.add(entry);
+            }
+        }
+    }
+
+    private List<String> terms(Entry entry) {
+        List<String> terms = new ArrayList<>();
+        terms.add(entry.id);
+        terms.add(entry.symbol);
+        terms.add(entry.name);
+        for (String word : entry.name.split("[\\s\\-_.()]+")) {
+            if (!word.isEmpty()) terms.add(word);
+        }
+        for (String word : entry.id.split("-")) {
+            if (!word.isEmpty()) terms.add(word);
+        }
+        return terms;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,23 +1,31 @@
 package com.anil.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.anil.model.Coin;
 
 import java.util.List;
 
 public interface CoinService {
     List<Coin> getCoinList(int page) throws Exception;
-    String getMarketChart(String coinId,int days) throws Exception;
-    String getCoinDetails(String coinId) throws JsonProcessingException;
+    byte[] getMarketChart(String coinId,int days) throws Exception;
+    byte[] getMarketChart(String coinId, int days, Integer points, String interval) throws Exception;
+    byte[] getCoinDetails(String coinId) throws Exception;
 
     Coin findById(String coinId) throws Exception;
 
-    String searchCoin(String keyword);
+    byte[] searchCoin(String keyword) throws Exception;
 
-    String getTop50CoinsByMarketCapRank();
+    byte[] getTop50CoinsByMarketCapRank() throws Exception;
 
-    String getTreadingCoins();
+    long getCoinListVersion(int page) throws Exception;
+
+    long getTop50Version() throws Exception;
+
+    byte[] getTreadingCoins() throws Exception;
 
     List<Coin> getTopGainers() throws Exception;
     List<Coin> getTopLosers() throws Exception;
+    List<Coin> getTopGainers(int limit) throws Exception;
+    List<Coin> getTopLosers(int limit) throws Exception;
+    List<Coin> getTopByVolume(int limit) throws Exception;
+    List<Coin> getTopByMarketCap(int limit) throws Exception;
 }
@@ -1,24 +1,25 @@
 package com.anil.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.anil.domain.MarketDataPriority;
 import com.anil.model.Coin;
+import com.anil.model.MarketChartSeries;
 import com.anil.repository.CoinRepository;
+import com.anil.utils.ChartAggregation;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestTemplate;
-
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 
 @Service
@@ -30,61 +31,110 @@ public class CoinServiceImpl implements CoinService{
     private ObjectMapper objectMapper;
 
 
-    @Value("${coingecko.api.key}")
-    private String API_KEY;
-
+    @Autowired
+    private MarketDataClient marketDataClient;
 
+    @Autowired
+    private MarketSnapshotCache marketSnapshotCache;
 
-    @Override
-    public List<Coin> getCoinList(int page) throws Exception {
-        String url = "https://api.coingecko.com/api/v3/coins/markets?vs_currency=usd&per_page=10&page="+page;
+    @Autowired
+    private MarketChartStore marketChartStore;
 
+    @Autowired
+    private MarketRanking marketRanking;
 
-        RestTemplate restTemplate = new RestTemplate();
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("x-cg-demo-api-key", API_KEY);
+    @Autowired
+    private CoinSearchIndex coinSearchIndex;
 
+    @Value("${market-data.cache.max-pages:200}")
+    private long maxCachedPages;
 
-            HttpEntity<String> entity = new HttpEntity<>("parameters", headers);
+    @Value("${market-data.cache.coin-list-ttl-seconds:60}")
+    private long coinListTtl;
 
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+    @Value("${market-data.cache.top50-ttl-seconds:60}")
+    private long top50Ttl;
 
-            System.out.println(response.getBody());
-            List<Coin> coins = objectMapper.readValue(response.getBody(), new TypeReference<List<Coin>>() {});
+    @Value("${market-data.cache.trending-ttl-seconds:300}")
+    private long trendingTtl;
 
-            return coins;
+    @Value("${market-data.cache.movers-ttl-seconds:120}")
+    private long moversTtl;
 
-        } catch (HttpClientErrorException | HttpServerErrorException | JsonProcessingException e) {
-            System.err.println("Error: " + e);
-            // Handle error accordingly
-            throw new Exception("please wait for time because you are using free plan");
-        }
+    private MarketSnapshotCache.Region<Integer, List<Coin>> coinListCache;
+    private MarketSnapshotCache.Region<String, byte[]> top50Cache;
+    private MarketSnapshotCache.Region<String, byte[]> trendingCache;
+    private MarketSnapshotCache.Region<String, MarketRanking> moversCache;
 
+    @PostConstruct
+    void initCaches() {
+        coinListCache = marketSnapshotCache.region("coins.page", coinListTtl, maxCachedPages, this::fetchCoinList);
+        top50Cache = marketSnapshotCache.region("coins.top50", top50Ttl, 1, key -> fetchTop50CoinsByMarketCapRank());
+        trendingCache = marketSnapshotCache.region("coins.trending", trendingTtl, 1, key -> fetchTreadingCoins());
+        moversCache = marketSnapshotCache.region("coins.movers", moversTtl, 1, key -> fetchFallbackRanking());
     }
 
     @Override
-    public String getMarketChart(String coinId, int days) throws Exception {
-        String url = "https://api.coingecko.com/api/v3/coins/"+coinId+"/market_chart?vs_currency=usd&days="+days;
+    public List<Coin> getCoinList(int page) throws Exception {
+        return coinListCache.get(page);
+    }
 
-        RestTemplate restTemplate = new RestTemplate();
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("x-cg-demo-api-key", API_KEY);
+    private List<Coin> fetchCoinList(int page) throws Exception {
+        String path = "/coins/markets?vs_currency=usd&per_page=10&page="+page;
 
-            HttpEntity<String> entity = new HttpEntity<>("parameters", headers);
+        return marketDataClient.stream(path, MarketDataPriority.INTERACTIVE, CoinMarketsReader.INSTANCE);
+    }
 
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+    @Override
+    public byte[] getMarketChart(String coinId, int days) throws Exception {
+        return getMarketChart(coinId, days, null, null);
+    }
 
-            return response.getBody();
+    @Override
+    public byte[] getMarketChart(String coinId, int days, Integer points, String interval) throws Exception {
+        // checked before anything is fetched; IllegalArgumentException answers 400 with the message
+        if (points != null && interval != null) {
+            throw new IllegalArgumentException("Pass either points or interval, not both");
+        }
+        if (points != null && points < 3) {
+            throw new IllegalArgumentException("points must be at least 3");
+        }
+        long bucket = interval == null ? 0 : parseInterval(interval);
 
-        } catch (HttpClientErrorException | HttpServerErrorException e) {
-            System.err.println("Error: " + e);
-            // Handle error accordingly
-//            return null;
-            throw new Exception("you are using free plan");
+        MarketChartSeries series = marketChartStore.getRange(coinId, days);
+        if (interval != null) {
+            return marketChartStore.toOhlcJson(series, bucket);
+        }
+        if (points != null && points < series.size()) {
+            int[] kept = new int[points];
+            int count = ChartAggregation.lttb(series.timestamps(), series.prices(), series.size(), points, kept);
+            series = series.select(kept, count);
         }
+        return marketChartStore.toJson(series);
+    }
 
+    // "15m", "4h", "1d" -> millis
+    private long parseInterval(String interval) {
+        String value = interval.trim().toLowerCase();
+        if (value.length() < 2) throw new IllegalArgumentException("invalid interval " + interval);
+        long amount;
+        try {
+            amount = Long.parseLong(value.substring(0, value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid interval " + interval);
+        }
+        long unit = switch (value.charAt(value.length() - 1)) {
+            case 'm' -> 60_000L;
+            case 'h' -> 3_600_000L;
+            case 'd' -> 86_400_000L;
+            default -> throw new IllegalArgumentException("invalid interval " + interval);
+        };
+        if (amount <= 0) throw new IllegalArgumentException("invalid interval " + interval);
+        try {
+            return Math.multiplyExact(amount, unit);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("invalid interval " + interval);
+        }
     }
 
     private double convertToDouble(Object value) {
@@ -100,26 +150,14 @@ public class CoinServiceImpl implements CoinService{
     }
 
     @Override
-    public String getCoinDetails(String coinId) throws JsonProcessingException {
-
-        String baseUrl ="https://api.coingecko.com/api/v3/coins/"+coinId;
+    public byte[] getCoinDetails(String coinId) throws Exception {
 
-        System.out.println("------------------ get coin details base url "+baseUrl);
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("x-cg-demo-api-key", API_KEY);
-
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
-
-        RestTemplate restTemplate = new RestTemplate();
-        ResponseEntity<String> response = restTemplate.exchange(baseUrl, HttpMethod.GET, entity, String.class);
+        byte[] body = marketDataClient.get("/coins/"+coinId, byte[].class, MarketDataPriority.INTERACTIVE);
 
 //        Coin coins = objectMapper.readValue(response.getBody(), new TypeReference<>() {
 //        });
 //        coinRepository.save(coins);
-        JsonNode jsonNode = objectMapper.readTree(response.getBody());
-        jsonNode.get("image").get("large");
-        System.out.println(jsonNode.get("image").get("large"));
+        JsonNode jsonNode = objectMapper.readTree(body);
 
         Coin coin = new Coin();
 
@@ -144,7 +182,7 @@ public class CoinServiceImpl implements CoinService{
         coin.setTotalSupply(marketData.get("total_supply").asLong());
 
         coinRepository.save(coin);
-        return response.getBody();
+        return body;
     }
 
     @Override
@@ -155,108 +193,118 @@ public class CoinServiceImpl implements CoinService{
     }
 
     @Override
-    public String searchCoin(String keyword) {
-        String baseUrl ="https://api.coingecko.com/api/v3/search?query="+keyword;
-
-        HttpHeaders headers = new HttpHeaders();
-        headers.set("x-cg-demo-api-key", API_KEY);
-
-        HttpEntity<String> entity = new HttpEntity<>(headers);
-
-
-        RestTemplate restTemplate = new RestTemplate();
-        ResponseEntity<String> response = restTemplate.exchange(baseUrl, HttpMethod.GET, entity, String.class);
-
-        System.out.println(response.getBody());
+    public byte[] searchCoin(String keyword) throws Exception {
+        List<Coin> matches = coinSearchIndex.search(keyword);
+        if (!matches.isEmpty()) {
+            return searchResultJson(matches);
+        }
+        // unknown to the local universe (long-tail coins, before the first ingestion run)
+        return marketDataClient.get("/search?query=" + URLEncoder.encode(keyword, StandardCharsets.UTF_8),
+                byte[].class, MarketDataPriority.INTERACTIVE);
+    }
 
-        return response.getBody();
+    // same shape as CoinGecko's /search so the frontend cannot tell which side answered
+    private byte[] searchResultJson(List<Coin> coins) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(coins.size() * 256 + 96);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("coins");
+            for (Coin coin : coins) {
+                json.writeStartObject();
+                json.writeStringField("id", coin.getId());
+                json.writeStringField("name", coin.getName());
+                json.writeStringField("api_symbol", coin.getId());
+                json.writeStringField("symbol", coin.getSymbol() == null ? null : coin.getSymbol().toUpperCase(Locale.ROOT));
+                if (coin.getMarketCapRank() > 0) {
+                    json.writeNumberField("market_cap_rank", coin.getMarketCapRank());
+                } else {
+                    json.writeNullField("market_cap_rank");
+                }
+                String image = coin.getImage();
+                json.writeStringField("thumb", image == null ? null : image.replace("/large/", "/thumb/"));
+                json.writeStringField("large", image);
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            for (String empty : new String[]{"exchanges", "icos", "categories", "nfts"}) {
+                json.writeArrayFieldStart(empty);
+                json.writeEndArray();
+            }
+            json.writeEndObject();
+        }
+        return out.toByteArray();
     }
     @Override
-    public String getTreadingCoins() {
-        String url = "https://api.coingecko.com/api/v3/search/trending";
-
-        RestTemplate restTemplate = new RestTemplate();
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("x-cg-demo-api-key", API_KEY);
-
-            HttpEntity<String> entity = new HttpEntity<>("parameters", headers);
-
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-            return response.getBody();
+    public byte[] getTreadingCoins() throws Exception {
+        return trendingCache.get("trending");
+    }
 
-        } catch (HttpClientErrorException | HttpServerErrorException e) {
-            System.err.println("Error: " + e);
-            // Handle error accordingly
-            return null;
-        }
+    private byte[] fetchTreadingCoins() {
+        return marketDataClient.get("/search/trending", byte[].class, MarketDataPriority.WIDGET);
     }
 
     @Override
-    public String getTop50CoinsByMarketCapRank() {
-        String url = "https://api.coingecko.com/api/v3/coins/markets?vs_currency=usd&order=market_cap_desc&per_page=50&page=1";
-
-        RestTemplate restTemplate = new RestTemplate();
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("x-cg-demo-api-key", API_KEY);
+    public byte[] getTop50CoinsByMarketCapRank() throws Exception {
+        return top50Cache.get("top50");
+    }
 
-            HttpEntity<String> entity = new HttpEntity<>("parameters", headers);
+    @Override
+    public long getCoinListVersion(int page) throws Exception {
+        return coinListCache.loadedAt(page);
+    }
 
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+    @Override
+    public long getTop50Version() throws Exception {
+        return top50Cache.loadedAt("top50");
+    }
 
-            return response.getBody();
-        } catch (HttpClientErrorException | HttpServerErrorException e) {
-            System.err.println("Error: " + e);
-            return null;
-        }
+    private byte[] fetchTop50CoinsByMarketCapRank() {
+        return marketDataClient.get("/coins/markets?vs_currency=usd&order=market_cap_desc&per_page=50&page=1",
+                byte[].class, MarketDataPriority.WIDGET);
     }
 
     @Override
     public List<Coin> getTopGainers() throws Exception {
-        String url = "https://api.coingecko.com/api/v3/coins/markets?vs_currency=usd&order=percent_change_24h_desc&per_page=100&page=1";
+        return getTopGainers(10);
+    }
 
-        RestTemplate restTemplate = new RestTemplate();
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.set("x-cg-demo-api-key", API_KEY);
+    @Override
+    public List<Coin> getTopLosers() throws Exception {
+        return getTopLosers(10);
+    }
 
-            HttpEntity<String> entity = new HttpEntity<>("parameters", headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
+    @Override
+    public List<Coin> getTopGainers(int limit) throws Exception {
+        return ranking().top(MarketRanking.Metric.PRICE_CHANGE_24H, limit);
+    }
 
-            List<Coin> coins = objectMapper.readValue(response.getBody(), new TypeReference<List<Coin>>() {});
+    @Override
+    public List<Coin> getTopLosers(int limit) throws Exception {
+        return ranking().bottom(MarketRanking.Metric.PRICE_CHANGE_24H, limit);
+    }
 
-            return coins.subList(0, Math.min(10, coins.size()));
-        } catch (HttpClientErrorException | HttpServerErrorException | JsonProcessingException e) {
-            System.err.println("Error: " + e);
-            throw new Exception("Please wait for a while; you are using the free plan.");
-        }
+    @Override
+    public List<Coin> getTopByVolume(int limit) throws Exception {
+        return ranking().top(MarketRanking.Metric.TOTAL_VOLUME, limit);
     }
 
     @Override
-    public List<Coin> getTopLosers() throws Exception {
-        String url = "https://api.coingecko.com/api/v3/coins/markets?vs_currency=usd&order=percent_change_24h_asc&per_page=100&page=1";
+    public List<Coin> getTopByMarketCap(int limit) throws Exception {
+        return ranking().top(MarketRanking.Metric.MARKET_CAP, limit);
+    }
 
-        RestTemplate restTemplate = new RestTemplate();
-        try {
-            // Create HttpHeaders, API key is not needed for free tier
-            HttpHeaders headers = new HttpHeaders();
-            // API key is not needed for free tier, remove the following line if using free tier
-            // headers.set("x-cg-demo-api-key", API_KEY);
-
-            HttpEntity<String> entity = new HttpEntity<>("parameters", headers);
-            ResponseEntity<String> response = restTemplate.exchange(url, HttpMethod.GET, entity, String.class);
-
-            // Ensure the Coin class matches the API response
-            List<Coin> coins = objectMapper.readValue(response.getBody(), new TypeReference<List<Coin>>() {});
-
-            // Return the top 10 losers
-            return coins.subList(0, Math.min(10, coins.size()));
-        } catch (HttpClientErrorException | HttpServerErrorException | JsonProcessingException e) {
-            System.err.println("Error: " + e);
-            throw new Exception("Please wait for a while; you are using the free plan.");
-        }
+    // the ingested universe once the first refresh has landed; until then a
+    // ranking over one cached upstream page
+    private MarketRanking ranking() throws Exception {
+        return marketRanking.isEmpty() ? moversCache.get("page1") : marketRanking;
+    }
+
+    private MarketRanking fetchFallbackRanking() throws Exception {
+        List<Coin> coins = marketDataClient.stream("/coins/markets?vs_currency=usd&order=market_cap_desc&per_page=250&page=1",
+                MarketDataPriority.WIDGET, CoinMarketsReader.INSTANCE);
+        MarketRanking ranking = new MarketRanking();
+        ranking.apply(coins);
+        return ranking;
     }
 
 
@@ -0,0 +1,95 @@
+package com.anil.service;
+
+import com.anil.model.Asset;
+import com.anil.model.Coin;
+import com.anil.model.EntityChangedEvent;
+import com.anil.model.User;
+import com.anil.model.Watchlist;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Change counters behind the strong ETags of per-user endpoints. A user's
+ * counter moves whenever one of their rows (user, assets, watchlist) is written;
+ * the coins counter whenever a coin row is. An ETag built from the counters
+ * can be compared with If-None-Match before anything is read from the database.
+ * Each coin also remembers the ingestion run that last changed it, for caches
+ * of answers built from a single coin.
+ *
+ * Counters live in memory and start over on restart, so every tag also
+ * carries the boot time; tags from a previous run never match.
+ */
+@Component
+public class DataVersions {
+
+    private final long boot = System.currentTimeMillis();
+    private final AtomicLong coins = new AtomicLong();
+    private final Map<String, AtomicLong> users = new ConcurrentHashMap<>();
+    private final Map<String, Long> coinVersions = new ConcurrentHashMap<>();
+
+    @EventListener
+    public void onMarketDataRefreshed(MarketDataRefreshedEvent event) {
+        if (event.changed().isEmpty()) return;
+        coins.incrementAndGet();
+        for (Coin coin : event.changed()) {
+            if (coin.getId() != null) coinVersions.put(coin.getId(), event.version());
+        }
+    }
+
+    // writes seen by the JPA listener, whichever service made them
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        Object entity = event.entity();
+        if (entity instanceof Coin) {
+            coinChanged();
+        } else if (entity instanceof Asset asset && asset.getUser() != null) {
+            userDataChanged(asset.getUser().getEmail());
+        } else if (entity instanceof Watchlist watchlist && watchlist.getUser() != null) {
+            userDataChanged(watchlist.getUser().getEmail());
+        } else if (entity instanceof User user) {
+            userDataChanged(user.getEmail());
+        }
+    }
+
+    /** Ingestion run that last changed {@code coinId}; 0 for coins ingestion hasn't seen. */
+    public long coinVersion(String coinId) {
+        return coinVersions.getOrDefault(coinId, 0L);
+    }
+
+    public void coinChanged() {
+        afterCommit(coins::incrementAndGet);
+    }
+
+    public void userDataChanged(String email) {
+        if (email == null) return;
+        afterCommit(() -> users.computeIfAbsent(email, e -> new AtomicLong()).incrementAndGet());
+    }
+
+    /** Strong ETag for a payload built from {@code email}'s rows and the coins they embed. */
+    public String userETag(String resource, String email) {
+        AtomicLong user = users.get(email);
+        return "\"" + resource + "-" + Long.toString(boot, 36) + "-" + (user == null ? 0 : user.get())
+                + "-" + coins.get() + "\"";
+    }
+
+    // bumping only once the write is committed means a reader that still sees the
+    // old rows can never pair them with the new version; a rolled-back write bumps nothing
+    private void afterCommit(Runnable bump) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.anil.service;
+
+import com.anil.domain.MarketDataPriority;
+import com.anil.model.MarketChartSeries;
+import com.anil.utils.ChartAggregation;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Local copy of CoinGecko market_chart history. History never changes, so a
+ * series is downloaded once per granularity and afterwards only the tail since
+ * the last stored point is fetched through /market_chart/range; chart views
+ * become a range scan over the stored primitive arrays.
+ *
+ * CoinGecko picks the granularity from the window length (5 minutes up to one
+ * day, hourly up to 90 days, daily beyond that), so each granularity is kept
+ * as its own series and tail points are thinned to that step before appending.
+ */
+@Component
+public class MarketChartStore {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    private enum Granularity {
+        FIVE_MINUTE(5 * MINUTE, 1, 1),
+        HOURLY(HOUR, 90, 90),
+        DAILY(DAY, 0, 0);
+
+        final long step;
+        // window downloaded on the first request, 0 = whatever was asked for
+        final int initialDays;
+        // rolling window kept in memory, 0 = unbounded
+        final int retentionDays;
+
+        Granularity(long step, int initialDays, int retentionDays) {
+            this.step = step;
+            this.initialDays = initialDays;
+            this.retentionDays = retentionDays;
+        }
+
+        static Granularity forDays(int days) {
+            if (days <= 1) return FIVE_MINUTE;
+            if (days <= 90) return HOURLY;
+            return DAILY;
+        }
+    }
+
+    private static final ChartReader CHART_READER = new ChartReader();
+
+    private static class Entry {
+        // a lock rather than a monitor: the holder waits on CoinGecko, and a virtual thread parked in a monitor pins its carrier
+        final ReentrantLock lock = new ReentrantLock();
+        MarketChartSeries series = new MarketChartSeries();
+        long syncedAt;
+        int coveredDays;
+    }
+
+    @Autowired
+    private MarketDataClient marketDataClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${market-data.chart-store.max-series:500}")
+    private long maxSeries;
+
+    @Value("${market-data.chart-store.sync-interval-seconds:60}")
+    private long syncIntervalSeconds;
+
+    private Cache<String, Entry> entries;
+
+    @PostConstruct
+    void init() {
+        entries = Caffeine.newBuilder().maximumSize(maxSeries).build();
+    }
+
+    /** Points from the last {@code days} days, fetching only what is missing locally. */
+    public MarketChartSeries getRange(String coinId, int days) {
+        Granularity granularity = Granularity.forDays(days);
+        Entry entry = entries.get(coinId + "|" + granularity, key -> new Entry());
+        long now = System.currentTimeMillis();
+
+        // one loader per series; concurrent viewers of the same chart wait for it
+        entry.lock.lock();
+        try {
+            if (entry.series.size() == 0 || days > entry.coveredDays) {
+                int fetchDays = Math.max(days, granularity.initialDays);
+                loadFull(coinId, fetchDays, entry);
+                entry.coveredDays = fetchDays;
+            } else if (now - entry.syncedAt >= syncIntervalSeconds * 1000) {
+                try {
+                    loadTail(coinId, granularity, entry, now);
+                } catch (RestClientException e) {
+                    // history is still valid; serve it and retry the tail next time
+                    System.err.println("Chart tail refresh failed for " + coinId + ": " + e);
+                }
+            }
+            return entry.series.range(now - days * DAY);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    private void loadFull(String coinId, int days, Entry entry) {
+        entry.series = marketDataClient.stream("/coins/" + coinId + "/market_chart?vs_currency=usd&days=" + days,
+                MarketDataPriority.INTERACTIVE, CHART_READER);
+        entry.syncedAt = System.currentTimeMillis();
+    }
+
+    private void loadTail(String coinId, Granularity granularity, Entry entry, long now) {
+        MarketChartSeries series = entry.series;
+        int n = series.size();
+        // the newest point is CoinGecko's provisional "now" sample; replace it
+        if (n >= 2 && series.timestamp(n - 1) - series.timestamp(n - 2) < granularity.step) {
+            series.removeLast();
+        }
+
+        long fromSeconds = series.lastTimestamp() / 1000 + 1;
+        MarketChartSeries delta = marketDataClient.stream("/coins/" + coinId + "/market_chart/range?vs_currency=usd&from="
+                + fromSeconds + "&to=" + now / 1000, MarketDataPriority.INTERACTIVE, CHART_READER);
+
+        for (int i = 0; i < delta.size(); i++) {
+            boolean newest = i == delta.size() - 1;
+            if (newest || delta.timestamp(i) - series.lastTimestamp() >= granularity.step) {
+                series.append(delta.timestamp(i), delta.price(i), delta.marketCap(i), delta.volume(i));
+            }
+        }
+        if (granularity.retentionDays > 0) {
+            series.trimBefore(now - granularity.retentionDays * DAY);
+        }
+        entry.syncedAt = now;
+    }
+
+    // reads {"prices":[[t,v],...],"market_caps":[...],"total_volumes":[...]} off the wire
+    private static class ChartReader implements MarketDataClient.BodyReader<MarketChartSeries> {
+        @Override
+        public MarketChartSeries read(JsonParser parser) throws IOException {
+            MarketChartSeries into = new MarketChartSeries();
+            if (parser.nextToken() != JsonToken.START_OBJECT) return into;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                int i = 0;
+                while (parser.nextToken() == JsonToken.START_ARRAY) {
+                    parser.nextToken();
+                    long timestamp = parser.getLongValue();
+                    parser.nextToken();
+                    double value = parser.getValueAsDouble();
+                    parser.nextToken(); // END_ARRAY
+                    switch (field) {
+                        case "prices" -> into.append(timestamp, value, 0, 0);
+                        case "market_caps" -> {
+                            if (i < into.size()) into.setMarketCap(i, value);
+                        }
+                        case "total_volumes" -> {
+                            if (i < into.size()) into.setVolume(i, value);
+                        }
+                        default -> {
+                        }
+                    }
+                    i++;
+                }
+            }
+            return into;
+        }
+    }
+
+    /** Renders a series in CoinGecko's market_chart shape. */
+    public byte[] toJson(MarketChartSeries series) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(series.size() * 96 + 64);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            writeColumn(json, "prices", series, 0);
+            writeColumn(json, "market_caps", series, 1);
+            writeColumn(json, "total_volumes", series, 2);
+            json.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    /** Renders price candles as [[openTime, open, high, low, close], ...] like CoinGecko's /ohlc. */
+    public byte[] toOhlcJson(MarketChartSeries series, long interval) throws IOException {
+        int max = ChartAggregation.maxCandles(series.timestamps(), series.size(), interval);
+        long[] openTime = new long[max];
+        double[] open = new double[max];
+        double[] high = new double[max];
+        double[] low = new double[max];
+        double[] close = new double[max];
+        int count = ChartAggregation.ohlc(series.timestamps(), series.prices(), series.size(), interval,
+                openTime, open, high, low, close);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 96 + 16);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartArray();
+            for (int i = 0; i < count; i++) {
+                json.writeStartArray();
+                json.writeNumber(openTime[i]);
+                json.writeNumber(open[i]);
+                json.writeNumber(high[i]);
+                json.writeNumber(low[i]);
+                json.writeNumber(close[i]);
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+        }
+        return out.toByteArray();
+    }
+
+    private void writeColumn(JsonGenerator json, String name, MarketChartSeries series, int column) throws IOException {
+        json.writeArrayFieldStart(name);
+        for (int i = 0; i < series.size(); i++) {
+            json.writeStartArray();
+            json.writeNumber(series.timestamp(i));
+            json.writeNumber(column == 0 ? series.price(i) : column == 1 ? series.marketCap(i) : series.volume(i));
+            json.writeEndArray();
+        }
+        json.writeEndArray();
+    }
+}
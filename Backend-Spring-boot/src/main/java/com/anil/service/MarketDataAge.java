@@ -0,0 +1,26 @@
+package com.anil.service;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Tracks, per HTTP request, how old the oldest piece of market data used to
+ * answer it is. {@code MarketDataAgeAdvice} turns it into an Age header.
+ * Calls outside a request (scheduled jobs, cache refreshes) are ignored.
+ */
+public final class MarketDataAge {
+
+    public static final String ATTRIBUTE = MarketDataAge.class.getName() + ".fetchedAt";
+
+    private MarketDataAge() {
+    }
+
+    /** Notes that data fetched from upstream at {@code fetchedAtMillis} is part of the current response. */
+    public static void record(long fetchedAtMillis) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) return;
+        Object previous = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (previous instanceof Long oldest && oldest <= fetchedAtMillis) return;
+        attributes.setAttribute(ATTRIBUTE, fetchedAtMillis, RequestAttributes.SCOPE_REQUEST);
+    }
+}
@@ -0,0 +1,81 @@
+package com.anil.service;
+
+import com.anil.utils.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link CircuitBreaker} per CoinGecko operation (markets, coin details,
+ * market_chart, search, ...), so a failing endpoint doesn't take the others
+ * down with it.
+ *
+ * Metrics, tagged with the operation: market.breaker.state (0 closed,
+ * 1 half-open, 2 open), market.breaker.transitions (tagged with the target
+ * state) and market.breaker.rejected.
+ */
+@Component
+public class MarketDataCircuitBreakers {
+
+    // 4xx other than an upstream 429 is a real answer about the request, not an unhealthy
+    // upstream; our own limiter's 429 is a plain HttpClientErrorException and doesn't count either
+    static final CircuitBreaker.FailureClassifier UPSTREAM_FAILURE =
+            e -> !(e instanceof HttpClientErrorException) || e instanceof HttpClientErrorException.TooManyRequests;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${market-data.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${market-data.breaker.open-seconds:30}")
+    private long openSeconds;
+
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public CircuitBreaker forPath(String path) {
+        return breakers.computeIfAbsent(operation(path), this::create);
+    }
+
+    void rejected(String path) {
+        rejected.computeIfAbsent(operation(path), operation -> Counter.builder("market.breaker.rejected")
+                .tag("operation", operation)
+                .description("Calls failed fast because the operation's breaker was open")
+                .register(meterRegistry)).increment();
+    }
+
+    private CircuitBreaker create(String operation) {
+        CircuitBreaker breaker = new CircuitBreaker(operation, failureThreshold, openSeconds * 1000, (from, to) -> {
+            System.err.println("CoinGecko breaker '" + operation + "': " + from + " -> " + to);
+            Counter.builder("market.breaker.transitions")
+                    .tag("operation", operation)
+                    .tag("to", to.name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+        });
+        Gauge.builder("market.breaker.state", breaker, b -> b.getState().ordinal())
+                .tag("operation", operation)
+                .description("0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+        return breaker;
+    }
+
+    /** "/coins/bitcoin/market_chart/range?..." -> "coins.market_chart", "/coins/bitcoin" -> "coins.details". */
+    static String operation(String path) {
+        int query = path.indexOf('?');
+        String[] segments = (query < 0 ? path : path.substring(0, query)).split("/");
+        if (segments.length < 2) return "root";
+        if (segments[1].equals("coins") && segments.length >= 3 && !segments[2].equals("markets") && !segments[2].equals("list")) {
+            return segments.length >= 4 ? "coins." + segments[3] : "coins.details";
+        }
+        return segments.length >= 3 ? segments[1] + "." + segments[2] : segments[1];
+    }
+}
@@ -0,0 +1,203 @@
+package com.anil.service;
+
+import com.anil.domain.MarketDataPriority;
+import com.anil.exception.MarketDataUnavailableException;
+import com.anil.utils.CircuitBreaker;
+import com.anil.utils.SingleFlight;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.function.Supplier;
+
+/**
+ * Single entry point for CoinGecko calls. Every request goes over the pooled
+ * {@link RestTemplate} from {@code HttpClientConfig} and carries the API key.
+ * Identical GETs that overlap in time share one upstream call, and every
+ * upstream call first takes a permit from {@link CoinGeckoRateLimiter}.
+ *
+ * Each operation runs behind its breaker from {@link MarketDataCircuitBreakers}.
+ * When upstream fails or the breaker is open, {@link #get} serves the last
+ * successful body for the same path (recording its age for the Age header);
+ * without one, and for {@link #stream}, it throws {@link MarketDataUnavailableException}.
+ */
+@Component
+public class MarketDataClient {
+
+    /** Binds a response straight off the wire; the parser is positioned before the first token. */
+    public interface BodyReader<T> {
+        T read(JsonParser parser) throws IOException;
+    }
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private CoinGeckoRateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MarketDataCircuitBreakers circuitBreakers;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${coingecko.api.key}")
+    private String API_KEY;
+
+    // point at a local stand-in (see CoinGeckoStandIn under src/test) for offline load tests
+    @Value("${coingecko.api.base-url:https://api.coingecko.com/api/v3}")
+    private String baseUrl;
+
+    @Value("${market-data.coalesce-requests:true}")
+    private boolean coalesceRequests;
+
+    @Value("${market-data.fallback.max-entries:2000}")
+    private long maxFallbackEntries;
+
+    private final SingleFlight<String, Object> singleFlight = new SingleFlight<>();
+
+    private record LastKnownGood(Object body, long fetchedAt) {
+    }
+
+    private Cache<String, LastKnownGood> lastKnownGood;
+    private Counter fallbacks;
+
+    @PostConstruct
+    void init() {
+        lastKnownGood = Caffeine.newBuilder().maximumSize(maxFallbackEntries).build();
+        fallbacks = Counter.builder("market.fallback.served")
+                .description("Responses answered from the last successful upstream body")
+                .register(meterRegistry);
+    }
+
+    public String get(String path) {
+        return get(path, String.class, MarketDataPriority.INTERACTIVE);
+    }
+
+    public String get(String path, MarketDataPriority priority) {
+        return get(path, String.class, priority);
+    }
+
+    public <T> T get(String path, Class<T> responseType, MarketDataPriority priority) {
+        String key = responseType.getName() + " " + path;
+        try {
+            T body = responseType.cast(coalesce(key, () -> guarded(path, () -> limited(priority,
+                    () -> restTemplate.exchange(uri(path), HttpMethod.GET, entity(), responseType).getBody()))));
+            if (body != null) lastKnownGood.put(key, new LastKnownGood(body, System.currentTimeMillis()));
+            return body;
+        } catch (MarketDataUnavailableException e) {
+            LastKnownGood fallback = lastKnownGood.getIfPresent(key);
+            if (fallback == null) throw e;
+            fallbacks.increment();
+            MarketDataAge.record(fallback.fetchedAt());
+            return responseType.cast(fallback.body());
+        }
+    }
+
+    /**
+     * Streams the response body through {@code reader} without buffering it into
+     * a String first.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T stream(String path, MarketDataPriority priority, BodyReader<T> reader) {
+        return (T) coalesce(reader.getClass().getName() + " " + path,
+                () -> guarded(path, () -> limited(priority, () -> restTemplate.execute(uri(path), HttpMethod.GET,
+                        request -> request.getHeaders().set("x-cg-demo-api-key", API_KEY),
+                        response -> {
+                            try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                                return reader.read(parser);
+                            }
+                        }))));
+    }
+
+    // breaker for the path's operation; upstream failures come out as MarketDataUnavailableException,
+    // 4xx answers (unknown coin id, bad query) pass through unchanged
+    private <T> T guarded(String path, Supplier<T> call) {
+        CircuitBreaker breaker = circuitBreakers.forPath(path);
+        try {
+            return breaker.execute(call, MarketDataCircuitBreakers.UPSTREAM_FAILURE);
+        } catch (CircuitBreaker.OpenException e) {
+            circuitBreakers.rejected(path);
+            throw new MarketDataUnavailableException("Market data is temporarily unavailable",
+                    Math.max(1, e.getRetryAfterMillis() / 1000), e);
+        } catch (HttpClientErrorException e) {
+            // upstream 429s and our own limiter's (plain HttpClientErrorException) alike
+            if (e.getStatusCode().value() != 429) throw e;
+            throw new MarketDataUnavailableException("Market data provider is rate limiting us",
+                    retryAfter(e.getResponseHeaders()), e);
+        } catch (RestClientException e) {
+            throw new MarketDataUnavailableException("Market data provider failed: " + e.getMessage(), 5, e);
+        }
+    }
+
+    private long retryAfter(HttpHeaders headers) {
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        try {
+            return value == null ? 5 : Math.max(1, Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            return 5;
+        }
+    }
+
+    private Object coalesce(String key, Supplier<?> call) {
+        if (!coalesceRequests) {
+            return call.get();
+        }
+        try {
+            return singleFlight.execute(key, call::get);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // calls only throw unchecked RestClientExceptions
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T limited(MarketDataPriority priority, Supplier<T> call) {
+        rateLimiter.acquire(priority);
+        try {
+            T result = call.get();
+            rateLimiter.onSuccess();
+            return result;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            HttpHeaders headers = e.getResponseHeaders();
+            rateLimiter.onTooManyRequests(headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER));
+            throw e;
+        }
+    }
+
+    // paths arrive already encoded; a URI skips RestTemplate's template expansion and re-encoding
+    private URI uri(String path) {
+        try {
+            return URI.create(baseUrl + path);
+        } catch (IllegalArgumentException e) {
+            // raw input in a path segment (a coin name with a space); let the builder encode it
+            return UriComponentsBuilder.fromUriString(baseUrl + path).encode().build().toUri();
+        }
+    }
+
+    private HttpEntity<Void> entity() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("x-cg-demo-api-key", API_KEY);
+        return new HttpEntity<>(headers);
+    }
+}
@@ -0,0 +1,209 @@
+package com.anil.service;
+
+import com.anil.domain.MarketDataPriority;
+import com.anil.model.Coin;
+import com.anil.repository.CoinRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the {@code coins} table in step with CoinGecko's /coins/markets universe.
+ * Each run pulls the universe page by page, diffs it against what was last
+ * written and upserts only the changed rows in JDBC batches, so order
+ * placement can price from the table without going to the network.
+ */
+@Service
+public class MarketDataIngestionService {
+
+    private static final String UPSERT_SQL = "INSERT INTO coins (id, symbol, name, image, current_price, market_cap, " +
+            "market_cap_rank, fully_diluted_valuation, total_volume, high24h, low24h, price_change24h, " +
+            "price_change_percentage24h, market_cap_change24h, market_cap_change_percentage24h, circulating_supply, " +
+            "total_supply, max_supply, ath, ath_change_percentage, ath_date, atl, atl_change_percentage, atl_date, " +
+            "last_updated) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE symbol = VALUES(symbol), name = VALUES(name), image = VALUES(image), " +
+            "current_price = VALUES(current_price), market_cap = VALUES(market_cap), " +
+            "market_cap_rank = VALUES(market_cap_rank), fully_diluted_valuation = VALUES(fully_diluted_valuation), " +
+            "total_volume = VALUES(total_volume), high24h = VALUES(high24h), low24h = VALUES(low24h), " +
+            "price_change24h = VALUES(price_change24h), price_change_percentage24h = VALUES(price_change_percentage24h), " +
+            "market_cap_change24h = VALUES(market_cap_change24h), " +
+            "market_cap_change_percentage24h = VALUES(market_cap_change_percentage24h), " +
+            "circulating_supply = VALUES(circulating_supply), total_supply = VALUES(total_supply), " +
+            "max_supply = VALUES(max_supply), ath = VALUES(ath), ath_change_percentage = VALUES(ath_change_percentage), " +
+            "ath_date = VALUES(ath_date), atl = VALUES(atl), atl_change_percentage = VALUES(atl_change_percentage), " +
+            "atl_date = VALUES(atl_date), last_updated = VALUES(last_updated)";
+
+    @Autowired
+    private MarketDataClient marketDataClient;
+
+    @Autowired
+    private CoinRepository coinRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${market-data.ingestion.enabled:true}")
+    private boolean enabled;
+
+    @Value("${market-data.ingestion.per-page:250}")
+    private int perPage;
+
+    @Value("${market-data.ingestion.max-pages:4}")
+    private int maxPages;
+
+    @Value("${market-data.ingestion.batch-size:100}")
+    private int batchSize;
+
+    // last values written per coin id; seeded from the table on the first run
+    private Map<String, Coin> stored;
+
+    // one run at a time; held across upstream pages and the JDBC batch, so not a monitor that would pin a virtual thread
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    private final AtomicLong version = new AtomicLong();
+    private volatile Instant lastRefreshedAt;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("market.ingestion.age.seconds", this,
+                        s -> s.lastRefreshedAt == null ? -1 : Instant.now().getEpochSecond() - s.lastRefreshedAt.getEpochSecond())
+                .description("Seconds since the coins table was last refreshed from upstream")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${market-data.ingestion.initial-delay-ms:5000}",
+            fixedDelayString = "${market-data.ingestion.interval-ms:60000}")
+    public void scheduledRefresh() {
+        if (!enabled) return;
+        try {
+            refresh();
+        } catch (Exception e) {
+            System.err.println("Market data ingestion failed: " + e);
+        }
+    }
+
+    public void refresh() throws Exception {
+        refreshLock.lock();
+        try {
+            Universe fetched = fetchUniverse();
+            List<Coin> universe = fetched.coins();
+            if (universe.isEmpty()) return;
+
+            if (stored == null) {
+                stored = new HashMap<>();
+                for (Coin coin : coinRepository.findAll()) {
+                    stored.put(coin.getId(), coin);
+                }
+            }
+
+            List<Coin> changed = new ArrayList<>();
+            for (Coin coin : universe) {
+                if (!coin.equals(stored.get(coin.getId()))) {
+                    changed.add(coin);
+                }
+            }
+
+            if (!changed.isEmpty()) {
+                upsert(changed);
+                for (Coin coin : changed) {
+                    stored.put(coin.getId(), coin);
+                }
+            }
+
+            lastRefreshedAt = Instant.now();
+            eventPublisher.publishEvent(new MarketDataRefreshedEvent(universe, changed, version.incrementAndGet(), lastRefreshedAt,
+                    fetched.complete()));
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public Instant getLastRefreshedAt() {
+        return lastRefreshedAt;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    private record Universe(List<Coin> coins, boolean complete) {
+    }
+
+    private Universe fetchUniverse() {
+        List<Coin> universe = new ArrayList<>();
+        for (int page = 1; page <= maxPages; page++) {
+            List<Coin> coins;
+            try {
+                coins = marketDataClient.stream("/coins/markets?vs_currency=usd&order=market_cap_desc&per_page=" + perPage + "&page=" + page,
+                        MarketDataPriority.PRICE_REFRESH, CoinMarketsReader.INSTANCE);
+            } catch (RestClientException e) {
+                // keep what we have, flagged partial; the remaining pages are picked up next run
+                System.err.println("Market data ingestion stopped at page " + page + ": " + e);
+                return new Universe(universe, false);
+            }
+            universe.addAll(coins);
+            if (coins.size() < perPage) break;
+        }
+        return new Universe(universe, true);
+    }
+
+    private void upsert(List<Coin> coins) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, coins, batchSize, this::bind);
+    }
+
+    private void bind(PreparedStatement ps, Coin coin) throws SQLException {
+        ps.setString(1, coin.getId());
+        ps.setString(2, coin.getSymbol());
+        ps.setString(3, coin.getName());
+        ps.setString(4, coin.getImage());
+        ps.setDouble(5, coin.getCurrentPrice());
+        ps.setLong(6, coin.getMarketCap());
+        ps.setInt(7, coin.getMarketCapRank());
+        ps.setLong(8, coin.getFullyDilutedValuation());
+        ps.setLong(9, coin.getTotalVolume());
+        ps.setDouble(10, coin.getHigh24h());
+        ps.setDouble(11, coin.getLow24h());
+        ps.setDouble(12, coin.getPriceChange24h());
+        ps.setDouble(13, coin.getPriceChangePercentage24h());
+        ps.setLong(14, coin.getMarketCapChange24h());
+        ps.setDouble(15, coin.getMarketCapChangePercentage24h());
+        ps.setLong(16, coin.getCirculatingSupply());
+        ps.setLong(17, coin.getTotalSupply());
+        ps.setLong(18, coin.getMaxSupply());
+        ps.setDouble(19, coin.getAth());
+        ps.setDouble(20, coin.getAthChangePercentage());
+        ps.setTimestamp(21, timestamp(coin.getAthDate()));
+        ps.setDouble(22, coin.getAtl());
+        ps.setDouble(23, coin.getAtlChangePercentage());
+        ps.setTimestamp(24, timestamp(coin.getAtlDate()));
+        ps.setTimestamp(25, timestamp(coin.getLastUpdated()));
+    }
+
+    private Timestamp timestamp(java.util.Date date) {
+        return date == null ? null : new Timestamp(date.getTime());
+    }
+}
@@ -0,0 +1,23 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Published after each ingestion run. {@code coins} is the universe as of this
+ * run, {@code changed} only the rows that differed from the previous run.
+ *
+ * A run that lost a /coins/markets page part way is published with
+ * {@code complete} false: its coins are still current, but a coin missing from
+ * them may simply be on the page that failed. Listeners only drop coins that
+ * are absent from a complete run.
+ */
+public record MarketDataRefreshedEvent(List<Coin> coins, List<Coin> changed, long version, Instant refreshedAt,
+                                       boolean complete) {
+
+    public MarketDataRefreshedEvent(List<Coin> coins, List<Coin> changed, long version, Instant refreshedAt) {
+        this(coins, changed, version, refreshedAt, true);
+    }
+}
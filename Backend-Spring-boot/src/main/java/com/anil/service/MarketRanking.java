@@ -0,0 +1,126 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Sorted indexes over the ingested market universe. Each ingestion run only
+ * re-positions the coins whose values changed, and a top-N / bottom-N query
+ * walks N entries from one end of an index without touching the network.
+ *
+ * Updates come from a single writer (the ingestion listener); readers iterate
+ * the skip lists concurrently and may briefly miss a coin that is being moved.
+ */
+@Component
+public class MarketRanking {
+
+    public enum Metric {
+        PRICE_CHANGE_24H(Coin::getPriceChangePercentage24h),
+        TOTAL_VOLUME(coin -> coin.getTotalVolume()),
+        MARKET_CAP(coin -> coin.getMarketCap());
+
+        final ToDoubleFunction<Coin> value;
+
+        Metric(ToDoubleFunction<Coin> value) {
+            this.value = value;
+        }
+    }
+
+    private record Ranked(double value, String id, Coin coin) {
+        static Ranked of(Metric metric, Coin coin) {
+            return new Ranked(metric.value.applyAsDouble(coin), coin.getId(), coin);
+        }
+    }
+
+    // highest value first; id breaks ties so equal values never collide
+    private static final Comparator<Ranked> ORDER = Comparator.comparingDouble(Ranked::value).reversed()
+            .thenComparing(Ranked::id);
+
+    private final Map<Metric, NavigableSet<Ranked>> indexes = new EnumMap<>(Metric.class);
+
+    // last indexed version of each coin, touched only by the writer
+    private final Map<String, Coin> indexed = new HashMap<>();
+
+    public MarketRanking() {
+        for (Metric metric : Metric.values()) {
+            indexes.put(metric, new ConcurrentSkipListSet<>(ORDER));
+        }
+    }
+
+    @EventListener
+    public void onMarketDataRefreshed(MarketDataRefreshedEvent event) {
+        apply(event.coins(), event.complete());
+    }
+
+    /** Brings the indexes in line with {@code universe}; coins missing from it are dropped. */
+    public void apply(List<Coin> universe) {
+        apply(universe, true);
+    }
+
+    /** Updates the coins in {@code universe}; the rest are dropped only when {@code prune} is set. */
+    public synchronized void apply(List<Coin> universe, boolean prune) {
+        Set<String> seen = new HashSet<>(universe.size() * 2);
+        for (Coin coin : universe) {
+            if (coin.getId() == null || !seen.add(coin.getId())) continue;
+            Coin previous = indexed.get(coin.getId());
+            if (coin.equals(previous)) continue;
+            for (Metric metric : Metric.values()) {
+                NavigableSet<Ranked> index = indexes.get(metric);
+                if (previous != null) {
+                    index.remove(Ranked.of(metric, previous));
+                }
+                index.add(Ranked.of(metric, coin));
+            }
+            indexed.put(coin.getId(), coin);
+        }
+
+        if (prune && indexed.size() > seen.size()) {
+            Iterator<Map.Entry<String, Coin>> it = indexed.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Coin> entry = it.next();
+                if (seen.contains(entry.getKey())) continue;
+                for (Metric metric : Metric.values()) {
+                    indexes.get(metric).remove(Ranked.of(metric, entry.getValue()));
+                }
+                it.remove();
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return indexes.get(Metric.MARKET_CAP).isEmpty();
+    }
+
+    /** The {@code limit} coins with the highest {@code metric}, highest first. */
+    public List<Coin> top(Metric metric, int limit) {
+        return take(indexes.get(metric), limit);
+    }
+
+    /** The {@code limit} coins with the lowest {@code metric}, lowest first. */
+    public List<Coin> bottom(Metric metric, int limit) {
+        return take(indexes.get(metric).descendingSet(), limit);
+    }
+
+    private List<Coin> take(NavigableSet<Ranked> index, int limit) {
+        List<Coin> coins = new ArrayList<>(Math.max(0, Math.min(limit, 256)));
+        Iterator<Ranked> it = index.iterator();
+        while (coins.size() < limit && it.hasNext()) {
+            coins.add(it.next().coin());
+        }
+        return coins;
+    }
+}
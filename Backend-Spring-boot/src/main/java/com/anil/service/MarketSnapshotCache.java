@@ -0,0 +1,113 @@
+package com.anil.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+
+/**
+ * In-memory snapshots of upstream market pages. Each region has its own TTL;
+ * once an entry is older than the TTL it is still served (stale) while one
+ * background reload replaces it. Entries older than TTL + max-stale are
+ * dropped and the next caller loads synchronously.
+ *
+ * Hit/miss/eviction counts are published as cache.* metrics and stale
+ * serves as market.cache.stale, all tagged with the region name.
+ */
+@Component
+public class MarketSnapshotCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${market-data.cache.max-stale-seconds:600}")
+    private long maxStaleSeconds;
+
+    public interface Loader<K, V> {
+        V load(K key) throws Exception;
+    }
+
+    public <K, V> Region<K, V> region(String name, long ttlSeconds, long maxSize, Loader<K, V> loader) {
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        LoadingCache<K, Snapshot<V>> cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(ttl)
+                .expireAfterWrite(ttl.plusSeconds(maxStaleSeconds))
+                .recordStats()
+                .build(new CacheLoader<K, Snapshot<V>>() {
+                    @Override
+                    public Snapshot<V> load(K key) throws Exception {
+                        V value = loader.load(key);
+                        return value == null ? null : new Snapshot<>(value, System.currentTimeMillis());
+                    }
+
+                    @Override
+                    public Snapshot<V> reload(K key, Snapshot<V> old) throws Exception {
+                        V value = loader.load(key);
+                        // the same instance back means MarketDataClient served its last-known-good
+                        // body; keep the original fetch time so Age stays honest
+                        if (value != null && value == old.value()) return old;
+                        return value == null ? null : new Snapshot<>(value, System.currentTimeMillis());
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        Counter stale = Counter.builder("market.cache.stale")
+                .tag("cache", name)
+                .description("Entries served past their TTL while a refresh was pending")
+                .register(meterRegistry);
+        return new Region<>(cache, ttl.toMillis(), stale);
+    }
+
+    public static class Region<K, V> {
+        private final LoadingCache<K, Snapshot<V>> cache;
+        private final long ttlMillis;
+        private final Counter stale;
+
+        private Region(LoadingCache<K, Snapshot<V>> cache, long ttlMillis, Counter stale) {
+            this.cache = cache;
+            this.ttlMillis = ttlMillis;
+            this.stale = stale;
+        }
+
+        public V get(K key) throws Exception {
+            Snapshot<V> snapshot = snapshot(key);
+            if (snapshot == null) return null;
+            if (System.currentTimeMillis() - snapshot.loadedAt() > ttlMillis) stale.increment();
+            MarketDataAge.record(snapshot.loadedAt());
+            return snapshot.value();
+        }
+
+        /**
+         * Load time of the snapshot {@link #get} would return, loading it if needed;
+         * -1 when there is none. Changes exactly when the served value does.
+         */
+        public long loadedAt(K key) throws Exception {
+            Snapshot<V> snapshot = snapshot(key);
+            return snapshot == null ? -1 : snapshot.loadedAt();
+        }
+
+        private Snapshot<V> snapshot(K key) throws Exception {
+            try {
+                return cache.get(key);
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Exception cause) throw cause;
+                throw e;
+            }
+        }
+
+        public void invalidateAll() {
+            cache.invalidateAll();
+        }
+    }
+
+    private record Snapshot<V>(V value, long loadedAt) {
+    }
+}
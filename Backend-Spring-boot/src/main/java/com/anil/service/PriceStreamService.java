@@ -0,0 +1,495 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+import com.anil.utils.PriceFrameCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes price updates to SSE subscribers. The feed is the ingestion run:
+ * each changed coin is serialised once and handed to the subscribers of that
+ * coin id.
+ *
+ * Subscribers pick JSON events or compact binary frames ({@link PriceFrameCodec},
+ * base64 on the SSE wire). Binary subscribers start with a snapshot of their
+ * coins and then get only the fields that changed. Polling clients read the
+ * same frames from {@link #framesSince}: a full snapshot every
+ * {@code snapshot-every} frames, deltas in between.
+ *
+ * Every connection has one pending slot per subscribed coin, so a slow client
+ * only ever holds the latest price for each coin (older ones are overwritten)
+ * and its buffer can't grow past its subscription. Idle connections are parked
+ * servlet async requests and hold no thread; a small sender pool drains the
+ * connections that have something pending, at most one drain per connection.
+ *
+ * Sends block, so a client that stops reading would keep a sender busy until
+ * the container's write timeout. A send still running after
+ * {@code send-timeout-ms} is written off instead: the connection is closed, its
+ * sender interrupted, and the pool gets an extra thread until the stuck write
+ * returns, so the other connections keep their full set of senders.
+ */
+@Service
+public class PriceStreamService {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${market-data.stream.max-subscribers:20000}")
+    private int maxSubscribers;
+
+    @Value("${market-data.stream.max-coins-per-subscriber:100}")
+    private int maxCoinsPerSubscriber;
+
+    @Value("${market-data.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${market-data.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${market-data.stream.snapshot-every:30}")
+    private int snapshotEvery;
+
+    @Value("${market-data.stream.send-timeout-ms:10000}")
+    private long sendTimeoutMs = 10000;
+
+    /** Latest values of one coin in every wire format; {@code delta} is null when no streamed field changed. */
+    private record CoinUpdate(String json, byte[] full, byte[] delta) {
+        CoinUpdate asFull() {
+            return new CoinUpdate(json, full, full);
+        }
+    }
+
+    private record Frame(long sequence, byte[] bytes) {
+    }
+
+    private final Map<String, Set<Subscriber>> byCoin = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // latest serialised update per coin, used as the first frame for new subscribers
+    private volatile Map<String, CoinUpdate> latest = Map.of();
+    private volatile long version;
+
+    // encoder state, touched only from the ingestion listener
+    private final PriceFrameCodec.Writer feedWriter = new PriceFrameCodec.Writer();
+    private final Map<String, double[]> lastValues = new HashMap<>();
+    private final Map<String, byte[]> idBytes = new HashMap<>();
+
+    // the last snapshot frame and the deltas after it, oldest first
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+
+    // one encode buffer per sender thread rather than per connection
+    private final ThreadLocal<PriceFrameCodec.Writer> frameWriters = ThreadLocal.withInitial(PriceFrameCodec.Writer::new);
+
+    private ThreadPoolExecutor senders;
+    private Counter coalesced;
+    private Counter stalled;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threads = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "price-stream-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("market.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open price stream connections")
+                .register(meterRegistry);
+        coalesced = Counter.builder("market.stream.coalesced")
+                .description("Price updates replaced by a newer one before a slow subscriber received them")
+                .register(meterRegistry);
+        stalled = Counter.builder("market.stream.stalled")
+                .description("Price stream connections closed because a send outlasted send-timeout-ms")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        senders.shutdownNow();
+    }
+
+    /**
+     * Opens a stream of "prices" events for {@code coinIds}. Each event carries a
+     * JSON array with the latest values of the coins that changed since the last one.
+     */
+    public SseEmitter subscribe(List<String> coinIds) {
+        return subscribe(coinIds, false);
+    }
+
+    /** Like {@link #subscribe(List)}; with {@code binary} the events are base64 {@link PriceFrameCodec} frames named "frame". */
+    public SseEmitter subscribe(List<String> coinIds, boolean binary) {
+        if (coinIds.isEmpty() || coinIds.size() > maxCoinsPerSubscriber) {
+            throw new IllegalArgumentException("subscribe to between 1 and " + maxCoinsPerSubscriber + " coin ids");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+
+        SseEmitter emitter = newEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, coinIds, binary);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+
+        subscribers.add(subscriber);
+        for (String coinId : subscriber.coinIds) {
+            byCoin.compute(coinId, (id, set) -> {
+                if (set == null) set = ConcurrentHashMap.newKeySet();
+                set.add(subscriber);
+                return set;
+            });
+        }
+
+        Map<String, CoinUpdate> snapshot = latest;
+        for (String coinId : subscriber.coinIds) {
+            CoinUpdate update = snapshot.get(coinId);
+            if (update != null) subscriber.offer(coinId, update.asFull());
+        }
+        return emitter;
+    }
+
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    @EventListener
+    public void onMarketDataRefreshed(MarketDataRefreshedEvent event) {
+        Map<String, CoinUpdate> next = new HashMap<>(latest);
+        List<byte[]> deltas = new ArrayList<>();
+        // the first run seeds every coin; after that only rows ingestion saw change
+        for (Coin coin : latest.isEmpty() ? event.coins() : event.changed()) {
+            CoinUpdate update = encode(coin);
+            next.put(coin.getId(), update);
+            if (update.delta() != null) deltas.add(update.delta());
+            Set<Subscriber> interested = byCoin.get(coin.getId());
+            if (interested == null) continue;
+            for (Subscriber subscriber : interested) {
+                subscriber.offer(coin.getId(), update);
+            }
+        }
+        latest = next;
+        version = event.version();
+        appendFrame(event.version(), next, deltas);
+    }
+
+    /**
+     * Frames after {@code since}, concatenated. A client that is new, too far
+     * behind or ahead of this node gets the last snapshot and the deltas after
+     * it; an empty array means it is up to date, null that nothing was ingested yet.
+     */
+    public byte[] framesSince(Long since) {
+        List<Frame> send = new ArrayList<>();
+        synchronized (frames) {
+            if (frames.isEmpty()) return null;
+            boolean resync = since == null || since < frames.getFirst().sequence() || since > frames.getLast().sequence();
+            for (Frame frame : frames) {
+                if (resync || frame.sequence() > since) send.add(frame);
+            }
+        }
+        int length = 0;
+        for (Frame frame : send) length += frame.bytes().length;
+        byte[] out = new byte[length];
+        int pos = 0;
+        for (Frame frame : send) {
+            System.arraycopy(frame.bytes(), 0, out, pos, frame.bytes().length);
+            pos += frame.bytes().length;
+        }
+        return out;
+    }
+
+    private void appendFrame(long sequence, Map<String, CoinUpdate> all, List<byte[]> deltas) {
+        boolean snapshot;
+        synchronized (frames) {
+            snapshot = frames.isEmpty() || frames.size() >= snapshotEvery;
+        }
+        if (snapshot) {
+            feedWriter.beginFrame(PriceFrameCodec.SNAPSHOT, sequence);
+            for (CoinUpdate update : all.values()) feedWriter.appendRecord(update.full());
+        } else {
+            feedWriter.beginFrame(PriceFrameCodec.DELTA, sequence);
+            for (byte[] delta : deltas) feedWriter.appendRecord(delta);
+        }
+        Frame frame = new Frame(sequence, feedWriter.endFrame());
+        synchronized (frames) {
+            if (snapshot) frames.clear();
+            frames.addLast(frame);
+        }
+    }
+
+    private CoinUpdate encode(Coin coin) {
+        double[] values = new double[PriceFrameCodec.FIELD_COUNT];
+        values[PriceFrameCodec.CURRENT_PRICE] = coin.getCurrentPrice();
+        values[PriceFrameCodec.PRICE_CHANGE_24H] = coin.getPriceChange24h();
+        values[PriceFrameCodec.PRICE_CHANGE_PERCENTAGE_24H] = coin.getPriceChangePercentage24h();
+        values[PriceFrameCodec.HIGH_24H] = coin.getHigh24h();
+        values[PriceFrameCodec.LOW_24H] = coin.getLow24h();
+        values[PriceFrameCodec.MARKET_CAP] = coin.getMarketCap();
+        values[PriceFrameCodec.TOTAL_VOLUME] = coin.getTotalVolume();
+        values[PriceFrameCodec.LAST_UPDATED] = coin.getLastUpdated() == null ? 0 : coin.getLastUpdated().getTime();
+
+        byte[] id = idBytes.computeIfAbsent(coin.getId(), key -> key.getBytes(StandardCharsets.UTF_8));
+        int mask = PriceFrameCodec.changedFields(lastValues.put(coin.getId(), values), values);
+        byte[] full = feedWriter.encodeRecord(id, PriceFrameCodec.ALL_FIELDS, values);
+        byte[] delta = mask == 0 ? null
+                : mask == PriceFrameCodec.ALL_FIELDS ? full
+                : feedWriter.encodeRecord(id, mask, values);
+        return new CoinUpdate(toJson(coin), full, delta);
+    }
+
+    // keeps proxies and load balancers from closing idle streams, and finds dead ones
+    @Scheduled(fixedDelayString = "${market-data.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offerHeartbeat();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${market-data.stream.send-check-ms:1000}")
+    public void expireStalledSends() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.writeOffIfStalled(now);
+        }
+    }
+
+    // a written-off sender is replaced while it is stuck and the extra thread retires once it returns
+    private void resizeSenders(int delta) {
+        synchronized (senders) {
+            int size = senders.getCorePoolSize() + delta;
+            if (delta > 0) {
+                senders.setMaximumPoolSize(size);
+                senders.setCorePoolSize(size);
+            } else {
+                senders.setCorePoolSize(size);
+                senders.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private String toJson(Coin coin) {
+        StringWriter writer = new StringWriter(160);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(writer)) {
+            json.writeStartObject();
+            json.writeStringField("id", coin.getId());
+            json.writeNumberField("current_price", coin.getCurrentPrice());
+            json.writeNumberField("price_change_24h", coin.getPriceChange24h());
+            json.writeNumberField("price_change_percentage_24h", coin.getPriceChangePercentage24h());
+            json.writeNumberField("high_24h", coin.getHigh24h());
+            json.writeNumberField("low_24h", coin.getLow24h());
+            json.writeNumberField("market_cap", coin.getMarketCap());
+            json.writeNumberField("total_volume", coin.getTotalVolume());
+            json.writeNumberField("last_updated", coin.getLastUpdated() == null ? 0 : coin.getLastUpdated().getTime());
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+
+    private class Subscriber {
+        final SseEmitter emitter;
+        final Set<String> coinIds;
+        final boolean binary;
+
+        // guarded by this
+        private final Map<String, CoinUpdate> pending = new LinkedHashMap<>();
+        private boolean heartbeatDue;
+        private boolean draining;
+        private boolean closed;
+        private boolean snapshotSent;
+        // the send in flight: its thread and System.nanoTime() when it started
+        private Thread sender;
+        private long sendingSince;
+        private boolean writtenOff;
+
+        Subscriber(SseEmitter emitter, List<String> coinIds, boolean binary) {
+            this.emitter = emitter;
+            this.coinIds = Set.copyOf(coinIds);
+            this.binary = binary;
+        }
+
+        void offer(String coinId, CoinUpdate update) {
+            if (binary && update.delta() == null) return;
+            synchronized (this) {
+                if (closed) return;
+                // an overwritten delta may have carried fields the new one doesn't; resend them all
+                if (pending.merge(coinId, update, (older, newer) -> newer.asFull()) != update) coalesced.increment();
+                if (draining) return;
+                draining = true;
+            }
+            schedule();
+        }
+
+        void offerHeartbeat() {
+            synchronized (this) {
+                if (closed) return;
+                heartbeatDue = true;
+                if (draining) return;
+                draining = true;
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                close();
+            }
+        }
+
+        private void drain() {
+            List<CoinUpdate> batch;
+            boolean heartbeat;
+            synchronized (this) {
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                heartbeat = heartbeatDue;
+                heartbeatDue = false;
+            }
+
+            boolean sent = false;
+            boolean abandoned;
+            synchronized (this) {
+                sender = Thread.currentThread();
+                sendingSince = System.nanoTime();
+            }
+            try {
+                sent = send(batch, heartbeat);
+            } finally {
+                synchronized (this) {
+                    sender = null;
+                    abandoned = writtenOff;
+                }
+            }
+
+            if (abandoned) {
+                // the watchdog already closed us and added a sender in our place
+                Thread.interrupted();
+                resizeSenders(-1);
+                if (sent) emitter.complete();
+                return;
+            }
+            if (!sent) {
+                // client went away; the container reports it through onError/onCompletion too
+                close();
+                return;
+            }
+
+            synchronized (this) {
+                if (closed || (pending.isEmpty() && !heartbeatDue)) {
+                    draining = false;
+                    return;
+                }
+            }
+            // more arrived while sending; go again without holding a sender
+            schedule();
+        }
+
+        private boolean send(List<CoinUpdate> batch, boolean heartbeat) {
+            try {
+                if (!batch.isEmpty() && binary) {
+                    emitter.send(SseEmitter.event()
+                            .name("frame")
+                            .id(Long.toString(version))
+                            .data(Base64.getEncoder().encodeToString(frame(batch))));
+                } else if (!batch.isEmpty()) {
+                    StringBuilder json = new StringBuilder(batch.size() * 200).append('[');
+                    for (CoinUpdate update : batch) {
+                        if (json.length() > 1) json.append(',');
+                        json.append(update.json());
+                    }
+                    emitter.send(SseEmitter.event()
+                            .name("prices")
+                            .id(Long.toString(version))
+                            .data(json.append(']').toString(), MediaType.APPLICATION_JSON));
+                } else if (heartbeat) {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                }
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                return false;
+            }
+        }
+
+        void writeOffIfStalled(long now) {
+            synchronized (this) {
+                if (sender == null || writtenOff
+                        || now - sendingSince < TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs)) return;
+                writtenOff = true;
+                // the replacement exists before the stuck drain can return and retire one
+                resizeSenders(1);
+                // under the lock, so it can't land on the thread's next task
+                sender.interrupt();
+            }
+            stalled.increment();
+            close();
+        }
+
+        private byte[] frame(List<CoinUpdate> batch) {
+            PriceFrameCodec.Writer writer = frameWriters.get();
+            writer.beginFrame(snapshotSent ? PriceFrameCodec.DELTA : PriceFrameCodec.SNAPSHOT, version);
+            for (CoinUpdate update : batch) {
+                writer.appendRecord(snapshotSent ? update.delta() : update.full());
+            }
+            snapshotSent = true;
+            return writer.endFrame();
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed) return;
+                closed = true;
+                pending.clear();
+            }
+            if (subscribers.remove(this)) {
+                subscriberCount.decrementAndGet();
+            }
+            for (String coinId : coinIds) {
+                byCoin.computeIfPresent(coinId, (id, set) -> {
+                    set.remove(this);
+                    return set.isEmpty() ? null : set;
+                });
+            }
+        }
+    }
+}
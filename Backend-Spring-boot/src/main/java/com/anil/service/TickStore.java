@@ -0,0 +1,160 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+import com.anil.utils.ChartAggregation;
+import com.anil.utils.TickRingBuffer;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recent price/volume ticks per coin, one {@link TickRingBuffer} each, fed by
+ * every ingestion run. Sparklines and intraday stats are computed from a
+ * snapshot of the ring instead of another market_chart call.
+ *
+ * The ingestion listener is the only writer (ingestion runs are serialized);
+ * request threads only take snapshots.
+ */
+@Component
+public class TickStore {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${market-data.ticks.capacity:720}")
+    private int capacity = 720;
+
+    @Value("${market-data.ticks.max-coins:2000}")
+    private int maxCoins = 2000;
+
+    // complete runs a coin may be missing from before its ring is freed
+    @Value("${market-data.ticks.evict-after-runs:3}")
+    private int evictAfterRuns = 3;
+
+    private final Map<String, TickRingBuffer> rings = new ConcurrentHashMap<>();
+    // consecutive complete runs each tracked coin has been missing from; writer only
+    private final Map<String, Integer> missedRuns = new HashMap<>();
+
+    @EventListener
+    public void onMarketDataRefreshed(MarketDataRefreshedEvent event) {
+        record(event.coins(), event.refreshedAt().toEpochMilli(), event.complete());
+    }
+
+    /**
+     * Appends one tick per coin; a coin whose last_updated hasn't moved adds nothing.
+     * A ring is freed only once its coin has been missing from
+     * market-data.ticks.evict-after-runs complete runs in a row: its history
+     * can't be rebuilt without market_chart, so a partial run or a coin that
+     * briefly drops out of the universe must not cost it.
+     */
+    public void record(List<Coin> universe, long refreshedAt, boolean complete) {
+        Set<String> seen = new HashSet<>(universe.size() * 2);
+        for (Coin coin : universe) {
+            if (coin.getId() == null || !seen.add(coin.getId())) continue;
+            TickRingBuffer ring = rings.get(coin.getId());
+            if (ring == null) {
+                if (rings.size() >= maxCoins) continue;
+                ring = new TickRingBuffer(capacity);
+                rings.put(coin.getId(), ring);
+            }
+            long timestamp = coin.getLastUpdated() != null ? coin.getLastUpdated().getTime() : refreshedAt;
+            if (timestamp <= ring.lastTimestamp()) continue;
+            ring.add(timestamp, coin.getCurrentPrice(), coin.getTotalVolume());
+        }
+        if (!complete) return;
+        missedRuns.keySet().retainAll(rings.keySet());
+        Iterator<String> it = rings.keySet().iterator();
+        while (it.hasNext()) {
+            String coinId = it.next();
+            if (seen.contains(coinId)) {
+                missedRuns.remove(coinId);
+            } else if (missedRuns.merge(coinId, 1, Integer::sum) >= evictAfterRuns) {
+                it.remove();
+                missedRuns.remove(coinId);
+            }
+        }
+    }
+
+    /** Ticks recorded for {@code coinId}, oldest first; null when the coin isn't tracked. */
+    public TickRingBuffer.Snapshot ticks(String coinId) {
+        TickRingBuffer ring = rings.get(coinId);
+        return ring == null ? null : ring.snapshot();
+    }
+
+    /**
+     * Sparkline of the recent ticks reduced to at most {@code points} with LTTB,
+     * plus open/last/high/low, change and volatility (standard deviation of
+     * tick-to-tick log returns, in percent) over the whole window.
+     * Null when the coin has no ticks yet.
+     */
+    public byte[] sparklineJson(String coinId, int points) throws IOException {
+        TickRingBuffer.Snapshot ticks = ticks(coinId);
+        if (ticks == null || ticks.size() == 0) return null;
+        long[] t = ticks.timestamps();
+        double[] p = ticks.prices();
+        int size = ticks.size();
+
+        double high = p[0];
+        double low = p[0];
+        double sum = 0;
+        double sumSquares = 0;
+        int returns = 0;
+        for (int i = 0; i < size; i++) {
+            high = Math.max(high, p[i]);
+            low = Math.min(low, p[i]);
+            if (i > 0 && p[i - 1] > 0 && p[i] > 0) {
+                double r = Math.log(p[i] / p[i - 1]);
+                sum += r;
+                sumSquares += r * r;
+                returns++;
+            }
+        }
+        double volatility = 0;
+        if (returns > 1) {
+            double mean = sum / returns;
+            volatility = Math.sqrt(Math.max(0, (sumSquares - returns * mean * mean) / (returns - 1))) * 100;
+        }
+
+        int[] kept = new int[Math.max(0, Math.min(size, points))];
+        int count = ChartAggregation.lttb(t, p, size, kept.length, kept);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 40 + 256);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("id", coinId);
+            json.writeNumberField("ticks", size);
+            json.writeNumberField("from", t[0]);
+            json.writeNumberField("to", t[size - 1]);
+            json.writeNumberField("open", p[0]);
+            json.writeNumberField("last", p[size - 1]);
+            json.writeNumberField("high", high);
+            json.writeNumberField("low", low);
+            json.writeNumberField("change_percentage", p[0] == 0 ? 0 : (p[size - 1] - p[0]) / p[0] * 100);
+            json.writeNumberField("volatility", volatility);
+            json.writeArrayFieldStart("prices");
+            for (int i = 0; i < count; i++) {
+                json.writeStartArray();
+                json.writeNumber(t[kept[i]]);
+                json.writeNumber(p[kept[i]]);
+                json.writeEndArray();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+}
@@ -14,6 +14,9 @@ public class WatchlistServiceImpl implements WatchlistService{
     @Autowired
     private WatchlistRepository watchlistRepository;
 
+    @Autowired
+    private DataVersions dataVersions;
+
 
     @Override
     public Watchlist findUserWatchlist(Long userId) throws Exception {
@@ -49,6 +52,8 @@ public class WatchlistServiceImpl implements WatchlistService{
         }
         else watchlist.getCoins().add(coin);
         watchlistRepository.save(watchlist);
+        // a change to the coins join table alone doesn't fire the entity listener
+        dataVersions.userDataChanged(user.getEmail());
         return coin;
     }
 }
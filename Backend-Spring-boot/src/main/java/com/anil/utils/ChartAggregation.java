@@ -0,0 +1,100 @@
+package com.anil.utils;
+
+/**
+ * Chart reduction kernels over primitive (timestamp, value) columns. Both write
+ * into caller-supplied output arrays and allocate nothing themselves.
+ */
+public class ChartAggregation {
+
+    /**
+     * Largest-Triangle-Three-Buckets downsampling. Writes the indices of the kept
+     * points (ascending, first and last always included) into {@code out} and
+     * returns how many were written. {@code out} needs room for
+     * {@code min(size, threshold)} entries.
+     */
+    public static int lttb(long[] t, double[] v, int size, int threshold, int[] out) {
+        if (threshold >= size) {
+            for (int i = 0; i < size; i++) out[i] = i;
+            return size;
+        }
+        if (threshold < 3) {
+            if (threshold <= 0) return 0;
+            out[0] = 0;
+            if (threshold == 1) return 1;
+            out[1] = size - 1;
+            return 2;
+        }
+
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int a = 0;
+        int count = 0;
+        out[count++] = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // average of the next bucket is the third triangle vertex
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, size);
+            double avgT = 0;
+            double avgV = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgT += t[i];
+                avgV += v[i];
+            }
+            int nextLength = nextEnd - nextStart;
+            avgT /= nextLength;
+            avgV /= nextLength;
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double aT = t[a];
+            double aV = v[a];
+            double maxArea = -1;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((aT - avgT) * (v[i] - aV) - (aT - t[i]) * (avgV - aV));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            out[count++] = chosen;
+            a = chosen;
+        }
+
+        out[count++] = size - 1;
+        return count;
+    }
+
+    /** Upper bound on the candles {@link #ohlc} can produce for this input. */
+    public static int maxCandles(long[] t, int size, long interval) {
+        if (size == 0) return 0;
+        return (int) Math.min(size, (t[size - 1] / interval) - (t[0] / interval) + 1);
+    }
+
+    /**
+     * Buckets points into fixed {@code interval} candles aligned to the epoch.
+     * Empty buckets are skipped. Returns the number of candles written.
+     */
+    public static int ohlc(long[] t, double[] v, int size, long interval,
+                           long[] openTime, double[] open, double[] high, double[] low, double[] close) {
+        int count = -1;
+        long current = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            long bucket = t[i] - Math.floorMod(t[i], interval);
+            double value = v[i];
+            if (bucket != current) {
+                current = bucket;
+                count++;
+                openTime[count] = bucket;
+                open[count] = value;
+                high[count] = value;
+                low[count] = value;
+            } else {
+                if (value > high[count]) high[count] = value;
+                if (value < low[count]) low[count] = value;
+            }
+            close[count] = value;
+        }
+        return count + 1;
+    }
+}
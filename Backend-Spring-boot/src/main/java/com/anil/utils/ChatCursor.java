@@ -0,0 +1,31 @@
+package com.anil.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a sender's chat history: the (created_at, id) of a message.
+ * Ordering on the pair is total even when two messages share a timestamp, so a
+ * page that starts strictly after a cursor neither repeats nor skips a row.
+ * Sent to clients as an opaque url-safe token.
+ */
+public record ChatCursor(LocalDateTime createdAt, long id) {
+
+    public String encode() {
+        String raw = createdAt + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws IllegalArgumentException when {@code token} was not produced by {@link #encode()} */
+    public static ChatCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int split = raw.lastIndexOf('_');
+            return new ChatCursor(LocalDateTime.parse(raw.substring(0, split)), Long.parseLong(raw.substring(split + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid chat history cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.anil.utils;
+
+import java.util.function.Supplier;
+
+/**
+ * Consecutive-failure circuit breaker. After {@code failureThreshold} failures
+ * in a row it opens and rejects calls for {@code openMillis}; the first call
+ * after that is let through alone as a probe (half-open) while everyone else
+ * keeps being rejected. A successful probe closes the breaker, a failed one
+ * opens it again. A probe that ends in an error the classifier ignores (a bad
+ * request, or a local rejection before anything was sent) proves nothing either
+ * way: the breaker stays half-open and the next caller probes instead.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    public interface Listener {
+        void onTransition(State from, State to);
+    }
+
+    /** Thrown instead of calling through while the breaker is open or probing. */
+    public static class OpenException extends RuntimeException {
+        private final long retryAfterMillis;
+
+        OpenException(String name, long retryAfterMillis) {
+            super("circuit '" + name + "' is open");
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        public long getRetryAfterMillis() {
+            return retryAfterMillis;
+        }
+    }
+
+    public interface FailureClassifier {
+        /** Whether {@code e} says the dependency is unhealthy (as opposed to a bad request). */
+        boolean isFailure(RuntimeException e);
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Listener listener;
+
+    // guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis, Listener listener) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.listener = listener;
+    }
+
+    public <T> T execute(Supplier<T> call, FailureClassifier classifier) {
+        acquire();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            if (classifier.isFailure(e)) onFailure();
+            else onIgnored();
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private synchronized void acquire() {
+        if (state == State.CLOSED) return;
+        long now = System.currentTimeMillis();
+        if (state == State.OPEN && now - openedAt >= openMillis) {
+            // this caller is the probe; HALF_OPEN rejects everyone else until it reports back
+            transition(State.HALF_OPEN);
+            probing = true;
+            return;
+        }
+        if (state == State.HALF_OPEN && !probing) {
+            // the last probe was inconclusive; this caller takes its place
+            probing = true;
+            return;
+        }
+        long retryAfter = state == State.OPEN ? openMillis - (now - openedAt) : 1000;
+        throw new OpenException(name, retryAfter);
+    }
+
+    private synchronized void onSuccess() {
+        probing = false;
+        consecutiveFailures = 0;
+        if (state != State.CLOSED) transition(State.CLOSED);
+    }
+
+    private synchronized void onFailure() {
+        probing = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            openedAt = System.currentTimeMillis();
+            transition(State.OPEN);
+        }
+    }
+
+    // an ignored error counts as a success while closed, but can't close a half-open breaker
+    private synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            probing = false;
+        } else {
+            onSuccess();
+        }
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        if (listener != null) listener.onTransition(from, to);
+    }
+}
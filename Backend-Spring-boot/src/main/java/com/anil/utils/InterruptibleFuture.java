@@ -0,0 +1,52 @@
+package com.anil.utils;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * CompletableFuture for a task on an executor that, unlike
+ * {@link CompletableFuture#supplyAsync}, stops the task when cancelled: a task
+ * still queued never runs and a running one is interrupted, so an abandoned
+ * upstream call doesn't go on using rate-limit budget.
+ *
+ * Cancelling after the future has completed (by a timeout, say) still stops
+ * the task. Dependent stages are plain CompletableFutures and cancelling them
+ * does not reach the task.
+ */
+public final class InterruptibleFuture<T> extends CompletableFuture<T> {
+
+    private volatile Future<?> task;
+
+    private InterruptibleFuture() {
+    }
+
+    /** @throws org.springframework.core.task.TaskRejectedException when {@code executor} won't take the task */
+    public static <T> InterruptibleFuture<T> supplyAsync(Supplier<T> supplier, AsyncTaskExecutor executor) {
+        InterruptibleFuture<T> future = new InterruptibleFuture<>();
+        future.task = executor.submit(() -> {
+            if (future.isDone()) return;
+            try {
+                future.complete(supplier.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Future<?> running = task;
+        if (running != null) running.cancel(true);
+        return cancelled;
+    }
+
+    @Override
+    public <U> CompletableFuture<U> newIncompleteFuture() {
+        return new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,169 @@
+package com.anil.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Aho-Corasick automaton over a fixed keyword dictionary. Finds every
+ * whole-word occurrence of every keyword in one left-to-right pass over the
+ * text, case-insensitively; "up" matches in "going up" but not in "support".
+ * Keywords may contain spaces ("market cap").
+ *
+ * The automaton is compiled into a dense transition table over the keywords'
+ * alphabet, so each input character costs one array lookup. Instances are
+ * immutable and safe to share between threads.
+ */
+public final class KeywordMatcher<T> {
+
+    private final int[] asciiClass;
+    private final Map<Character, Integer> otherClass;
+    private final int classes;
+    private final int[] next;
+    // per state: matches ending here as {keyword length, value index} pairs, suffix matches included
+    private final int[][] outputs;
+    private final List<T> values;
+
+    private KeywordMatcher(int[] asciiClass, Map<Character, Integer> otherClass, int classes, int[] next,
+                           int[][] outputs, List<T> values) {
+        this.asciiClass = asciiClass;
+        this.otherClass = otherClass;
+        this.classes = classes;
+        this.next = next;
+        this.outputs = outputs;
+        this.values = values;
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /** Passes the value of each whole-word keyword occurrence to {@code sink}, in order of where it ends. */
+    public void forEachMatch(CharSequence text, Consumer<? super T> sink) {
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            int c = charClass(Character.toLowerCase(text.charAt(i)));
+            state = c < 0 ? 0 : next[state * classes + c];
+            int[] out = outputs[state];
+            if (out == null) continue;
+            if (i + 1 < length && Character.isLetterOrDigit(text.charAt(i + 1))) continue;
+            for (int k = 0; k < out.length; k += 2) {
+                int start = i + 1 - out[k];
+                if (start > 0 && Character.isLetterOrDigit(text.charAt(start - 1))) continue;
+                sink.accept(values.get(out[k + 1]));
+            }
+        }
+    }
+
+    public List<T> matches(CharSequence text) {
+        List<T> found = new ArrayList<>();
+        forEachMatch(text, found::add);
+        return found;
+    }
+
+    private int charClass(char c) {
+        if (c < 128) return asciiClass[c];
+        Integer cls = otherClass.get(c);
+        return cls == null ? -1 : cls;
+    }
+
+    public static final class Builder<T> {
+        private final Map<String, Integer> keywords = new HashMap<>();
+        private final List<T> values = new ArrayList<>();
+        private final List<String> ordered = new ArrayList<>();
+
+        /** Adds {@code keyword}; a keyword added twice keeps its first value. */
+        public Builder<T> add(String keyword, T value) {
+            String key = keyword.toLowerCase(Locale.ROOT).trim();
+            if (key.isEmpty() || keywords.containsKey(key)) return this;
+            keywords.put(key, values.size());
+            values.add(value);
+            ordered.add(key);
+            return this;
+        }
+
+        public KeywordMatcher<T> build() {
+            int[] asciiClass = new int[128];
+            Arrays.fill(asciiClass, -1);
+            Map<Character, Integer> otherClass = new HashMap<>();
+            int classes = 0;
+            int totalChars = 1;
+            for (String key : ordered) {
+                totalChars += key.length();
+                for (int i = 0; i < key.length(); i++) {
+                    char c = key.charAt(i);
+                    if (c < 128) {
+                        if (asciiClass[c] < 0) asciiClass[c] = classes++;
+                    } else if (!otherClass.containsKey(c)) {
+                        otherClass.put(c, classes++);
+                    }
+                }
+            }
+            int width = Math.max(1, classes);
+
+            // trie; -1 = no edge yet
+            int[] next = new int[totalChars * width];
+            Arrays.fill(next, -1);
+            int[][] outputs = new int[totalChars][];
+            int states = 1;
+            for (String key : ordered) {
+                int state = 0;
+                for (int i = 0; i < key.length(); i++) {
+                    char c = key.charAt(i);
+                    int cls = c < 128 ? asciiClass[c] : otherClass.get(c);
+                    int slot = state * width + cls;
+                    if (next[slot] < 0) next[slot] = states++;
+                    state = next[slot];
+                }
+                outputs[state] = new int[]{key.length(), keywords.get(key)};
+            }
+
+            // breadth-first: fill missing edges from the failure state and inherit its outputs
+            int[] fail = new int[states];
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int cls = 0; cls < width; cls++) {
+                int child = next[cls];
+                if (child < 0) {
+                    next[cls] = 0;
+                } else {
+                    fail[child] = 0;
+                    queue.add(child);
+                }
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                int[] inherited = outputs[fail[state]];
+                if (inherited != null) {
+                    int[] own = outputs[state];
+                    outputs[state] = own == null ? inherited : concat(own, inherited);
+                }
+                for (int cls = 0; cls < width; cls++) {
+                    int slot = state * width + cls;
+                    int child = next[slot];
+                    int viaFail = next[fail[state] * width + cls];
+                    if (child < 0) {
+                        next[slot] = viaFail;
+                    } else {
+                        fail[child] = viaFail;
+                        queue.add(child);
+                    }
+                }
+            }
+
+            return new KeywordMatcher<>(asciiClass, otherClass, width, Arrays.copyOf(next, states * width),
+                    Arrays.copyOf(outputs, states), List.copyOf(values));
+        }
+
+        private static int[] concat(int[] a, int[] b) {
+            int[] merged = Arrays.copyOf(a, a.length + b.length);
+            System.arraycopy(b, 0, merged, a.length, b.length);
+            return merged;
+        }
+    }
+}
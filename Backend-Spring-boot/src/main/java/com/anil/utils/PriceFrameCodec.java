@@ -0,0 +1,224 @@
+package com.anil.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary price frames. A frame is
+ * <pre>
+ *   byte    type            SNAPSHOT or DELTA
+ *   varint  sequence
+ *   int32   coin count      big-endian
+ *   coin records:
+ *     varint  id length, id bytes (UTF-8)
+ *     byte    field mask    bit n set = field n follows
+ *     fields  in bit order; float64 for prices, zigzag varint for integer fields
+ * </pre>
+ * A snapshot carries every field of every coin; a delta only the fields that
+ * changed since the previous frame. Frames can be concatenated and read back
+ * one after another.
+ *
+ * Field values travel as {@code double[FIELD_COUNT]} arrays indexed by the field
+ * constants, so neither side boxes anything.
+ */
+public class PriceFrameCodec {
+
+    public static final byte SNAPSHOT = 1;
+    public static final byte DELTA = 2;
+
+    public static final int CURRENT_PRICE = 0;
+    public static final int PRICE_CHANGE_24H = 1;
+    public static final int PRICE_CHANGE_PERCENTAGE_24H = 2;
+    public static final int HIGH_24H = 3;
+    public static final int LOW_24H = 4;
+    public static final int MARKET_CAP = 5;
+    public static final int TOTAL_VOLUME = 6;
+    public static final int LAST_UPDATED = 7;
+
+    public static final int FIELD_COUNT = 8;
+    public static final int ALL_FIELDS = (1 << FIELD_COUNT) - 1;
+
+    private static final int INTEGER_FIELDS = (1 << MARKET_CAP) | (1 << TOTAL_VOLUME) | (1 << LAST_UPDATED);
+
+    /** Mask of the fields that differ; every field when there is no previous value. */
+    public static int changedFields(double[] previous, double[] current) {
+        if (previous == null) return ALL_FIELDS;
+        int mask = 0;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if (Double.doubleToLongBits(previous[field]) != Double.doubleToLongBits(current[field])) {
+                mask |= 1 << field;
+            }
+        }
+        return mask;
+    }
+
+    /** Receives each coin record of a frame; {@code values} is reused and only the masked fields are set. */
+    public interface Sink {
+        void coin(String id, int mask, double[] values);
+    }
+
+    /**
+     * Builds frames and coin records in one growable buffer that is reused
+     * between calls. Not thread-safe.
+     */
+    public static class Writer {
+        private byte[] buf = new byte[4096];
+        private int pos;
+        private int countAt = -1;
+        private int count;
+
+        public Writer beginFrame(byte type, long sequence) {
+            pos = 0;
+            count = 0;
+            put(type);
+            putVarLong(sequence);
+            countAt = pos;
+            ensure(4);
+            pos += 4;
+            return this;
+        }
+
+        public Writer coin(byte[] id, int mask, double[] values) {
+            putVarLong(id.length);
+            ensure(id.length);
+            System.arraycopy(id, 0, buf, pos, id.length);
+            pos += id.length;
+            put((byte) mask);
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                if ((mask & (1 << field)) == 0) continue;
+                if ((INTEGER_FIELDS & (1 << field)) != 0) {
+                    long v = (long) values[field];
+                    putVarLong((v << 1) ^ (v >> 63));
+                } else {
+                    putDouble(values[field]);
+                }
+            }
+            count++;
+            return this;
+        }
+
+        /** Appends a record previously produced by {@link #encodeRecord}. */
+        public Writer appendRecord(byte[] record) {
+            ensure(record.length);
+            System.arraycopy(record, 0, buf, pos, record.length);
+            pos += record.length;
+            count++;
+            return this;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public byte[] endFrame() {
+            buf[countAt] = (byte) (count >>> 24);
+            buf[countAt + 1] = (byte) (count >>> 16);
+            buf[countAt + 2] = (byte) (count >>> 8);
+            buf[countAt + 3] = (byte) count;
+            countAt = -1;
+            return Arrays.copyOf(buf, pos);
+        }
+
+        /** One encoded coin record, for callers that assemble frames from cached records. */
+        public byte[] encodeRecord(byte[] id, int mask, double[] values) {
+            pos = 0;
+            countAt = -1;
+            coin(id, mask, values);
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void put(byte b) {
+            ensure(1);
+            buf[pos++] = b;
+        }
+
+        private void putDouble(double value) {
+            ensure(8);
+            long bits = Double.doubleToRawLongBits(value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buf[pos++] = (byte) (bits >>> shift);
+            }
+        }
+
+        private void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        private void ensure(int bytes) {
+            if (pos + bytes > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + bytes));
+            }
+        }
+    }
+
+    /** Reads frames back; keeps the header of the last frame read. Not thread-safe. */
+    public static class Reader {
+        private final double[] values = new double[FIELD_COUNT];
+        private byte[] data;
+        private int pos;
+        private byte type;
+        private long sequence;
+
+        /** Reads the frame starting at {@code offset} and returns the offset just past it. */
+        public int read(byte[] frame, int offset, Sink sink) {
+            data = frame;
+            pos = offset;
+            type = data[pos++];
+            sequence = getVarLong();
+            int count = ((data[pos] & 0xFF) << 24) | ((data[pos + 1] & 0xFF) << 16)
+                    | ((data[pos + 2] & 0xFF) << 8) | (data[pos + 3] & 0xFF);
+            pos += 4;
+            for (int i = 0; i < count; i++) {
+                int idLength = (int) getVarLong();
+                String id = new String(data, pos, idLength, StandardCharsets.UTF_8);
+                pos += idLength;
+                int mask = data[pos++] & 0xFF;
+                for (int field = 0; field < FIELD_COUNT; field++) {
+                    if ((mask & (1 << field)) == 0) continue;
+                    if ((INTEGER_FIELDS & (1 << field)) != 0) {
+                        long v = getVarLong();
+                        values[field] = (v >>> 1) ^ -(v & 1);
+                    } else {
+                        values[field] = getDouble();
+                    }
+                }
+                sink.coin(id, mask, values);
+            }
+            data = null;
+            return pos;
+        }
+
+        public byte type() {
+            return type;
+        }
+
+        public long sequence() {
+            return sequence;
+        }
+
+        private double getDouble() {
+            long bits = 0;
+            for (int i = 0; i < 8; i++) {
+                bits = (bits << 8) | (data[pos++] & 0xFF);
+            }
+            return Double.longBitsToDouble(bits);
+        }
+
+        private long getVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.anil.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collapses concurrent calls for the same key into one execution. The first
+ * caller runs the call; everyone arriving while it is in flight waits for and
+ * shares its result (or its exception). Once the call finishes the key is
+ * released, so a later caller triggers a fresh execution.
+ */
+public class SingleFlight<K, V> {
+
+    public interface Call<V> {
+        V call() throws Exception;
+    }
+
+    private static final class Flight<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final AtomicInteger waiters = new AtomicInteger();
+    }
+
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V execute(K key, Call<V> call) throws Exception {
+        Flight<V> own = new Flight<>();
+        Flight<V> existing = inFlight.putIfAbsent(key, own);
+        if (existing != null) {
+            existing.waiters.incrementAndGet();
+            return await(existing.result);
+        }
+        try {
+            V value = call.call();
+            own.result.complete(value);
+            return value;
+        } catch (Throwable t) {
+            own.result.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    /** Callers that joined the call in flight for {@code key} rather than starting one; 0 when none is. */
+    public int waiting(K key) {
+        Flight<V> flight = inFlight.get(key);
+        return flight == null ? 0 : flight.waiters.get();
+    }
+
+    private V await(CompletableFuture<V> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception exception) throw exception;
+            if (cause instanceof Error error) throw error;
+            throw e;
+        }
+    }
+}
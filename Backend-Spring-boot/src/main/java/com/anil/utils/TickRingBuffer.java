@@ -0,0 +1,92 @@
+package com.anil.utils;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fixed-capacity ring of (timestamp, price, volume) ticks in preallocated
+ * primitive columns. Once full, each new tick overwrites the oldest one.
+ *
+ * One thread writes, any number read, and neither side locks. The writer fills
+ * the slot first and publishes it by bumping the volatile {@code written}
+ * counter. A reader copies the slots it saw published, then reads the counter
+ * again; any slot the writer may have reused in the meantime is dropped from
+ * the front of the copy, so a snapshot is always a consistent run of ticks.
+ */
+public class TickRingBuffer {
+
+    /** Ticks oldest first; the arrays are the snapshot's own copies. */
+    public record Snapshot(long[] timestamps, double[] prices, double[] volumes, int size) {
+    }
+
+    private final int capacity;
+    // one spare slot, so the slot the writer may be filling is never one of the last `capacity` ticks
+    private final int slots;
+    private final long[] timestamps;
+    private final double[] prices;
+    private final double[] volumes;
+
+    // ticks ever written; slot of tick n is n % slots
+    private volatile long written;
+
+    public TickRingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.slots = capacity + 1;
+        this.timestamps = new long[slots];
+        this.prices = new double[slots];
+        this.volumes = new double[slots];
+    }
+
+    /** Appends a tick. Single writer only. */
+    public void add(long timestamp, double price, double volume) {
+        long n = written;
+        int slot = (int) (n % slots);
+        timestamps[slot] = timestamp;
+        prices[slot] = price;
+        volumes[slot] = volume;
+        written = n + 1;
+    }
+
+    /** Timestamp of the newest tick, or {@link Long#MIN_VALUE} when empty. Writer side. */
+    public long lastTimestamp() {
+        long n = written;
+        return n == 0 ? Long.MIN_VALUE : timestamps[(int) ((n - 1) % slots)];
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return (int) Math.min(written, capacity);
+    }
+
+    public Snapshot snapshot() {
+        long end = written;
+        long start = Math.max(0, end - capacity);
+        int size = (int) (end - start);
+        long[] t = new long[size];
+        double[] p = new double[size];
+        double[] v = new double[size];
+        for (int i = 0; i < size; i++) {
+            int slot = (int) ((start + i) % slots);
+            t[i] = timestamps[slot];
+            p[i] = prices[slot];
+            v[i] = volumes[slot];
+        }
+        // keep the slot reads above from drifting past the re-read of the counter
+        VarHandle.acquireFence();
+        long after = written;
+        // the writer may be filling tick `after` right now, which reuses the slot of tick after - slots
+        long firstIntact = after + 1 - slots;
+        if (firstIntact <= start) {
+            return new Snapshot(t, p, v, size);
+        }
+        int skip = (int) Math.min(size, firstIntact - start);
+        int kept = size - skip;
+        System.arraycopy(t, skip, t, 0, kept);
+        System.arraycopy(p, skip, p, 0, kept);
+        System.arraycopy(v, skip, v, 0, kept);
+        return new Snapshot(t, p, v, kept);
+    }
+}
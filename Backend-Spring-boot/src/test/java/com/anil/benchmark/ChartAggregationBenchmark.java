@@ -0,0 +1,80 @@
+package com.anil.benchmark;
+
+import com.anil.utils.ChartAggregation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the chart kernels on a max-range daily/hourly sized series.
+ *
+ * Run main() from the IDE, or after mvn test-compile:
+ *   java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main ChartAggregationBenchmark -prof gc
+ * (-prof gc confirms the kernels allocate nothing per call)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChartAggregationBenchmark {
+
+	@Param({"2160", "40000"})
+	int size;
+
+	@Param({"200"})
+	int points;
+
+	long[] timestamps;
+	double[] prices;
+
+	int[] kept;
+	long[] openTime;
+	double[] open;
+	double[] high;
+	double[] low;
+	double[] close;
+
+	static final long DAY = 86_400_000L;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		timestamps = new long[size];
+		prices = new double[size];
+		long start = 1_600_000_000_000L;
+		double price = 30_000;
+		for (int i = 0; i < size; i++) {
+			timestamps[i] = start + i * 3_600_000L;
+			price *= 1 + (random.nextGaussian() * 0.01);
+			prices[i] = price;
+		}
+		kept = new int[points];
+		int candles = ChartAggregation.maxCandles(timestamps, size, DAY);
+		openTime = new long[candles];
+		open = new double[candles];
+		high = new double[candles];
+		low = new double[candles];
+		close = new double[candles];
+	}
+
+	@Benchmark
+	public int lttb() {
+		return ChartAggregation.lttb(timestamps, prices, size, points, kept);
+	}
+
+	@Benchmark
+	public int dailyCandles() {
+		return ChartAggregation.ohlc(timestamps, prices, size, DAY, openTime, open, high, low, close);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(ChartAggregationBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,105 @@
+package com.anil.benchmark;
+
+import com.anil.utils.KeywordMatcher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chat intent detection on a typical prompt: the old lower-case-then-contains
+ * scan over every keyword (with today's nine coin keywords, and with a 250-coin
+ * alias dictionary) against one pass of the compiled KeywordMatcher over the
+ * same 250-coin dictionary.
+ *
+ * Run main() from the IDE, or after mvn test-compile:
+ *   java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main ChatIntentBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatIntentBenchmark {
+
+	@Param({"Hey, what are the top BTC and ETH price, volume and market cap trends today? Should I buy some Solana?"})
+	String prompt;
+
+	Map<String, List<String>> builtInKeywords;
+	Map<String, List<String>> fullKeywords;
+	KeywordMatcher<String> matcher;
+
+	@Setup
+	public void setUp() {
+		Map<String, List<String>> categories = new LinkedHashMap<>();
+		categories.put("price", List.of("price", "cost", "worth", "value", "rate", "trading at", "current price"));
+		categories.put("trend", List.of("trend", "moving", "performance", "performing", "going", "market", "direction"));
+		categories.put("top", List.of("top", "best", "highest", "leading", "biggest", "largest", "most"));
+		categories.put("gain", List.of("gain", "increase", "up", "risen", "growth", "growing", "profit"));
+		categories.put("loss", List.of("loss", "decrease", "down", "fallen", "dropping", "dip", "crash"));
+		categories.put("volume", List.of("volume", "trading volume", "liquidity", "traded", "exchange volume"));
+		categories.put("market_cap", List.of("market cap", "capitalization", "market value", "valuation"));
+		categories.put("wallet", List.of("wallet", "store", "hold", "keep", "storage", "save"));
+		categories.put("invest", List.of("invest", "buy", "purchase", "trade", "trading", "investment"));
+
+		builtInKeywords = new LinkedHashMap<>(categories);
+		builtInKeywords.put("coin", List.of("bitcoin", "btc", "eth", "ethereum", "usdt", "bnb", "xrp", "ada", "doge"));
+
+		List<String> aliases = new ArrayList<>(List.of("bitcoin", "btc", "ethereum", "eth", "solana", "sol"));
+		for (int i = 0; i < 247; i++) {
+			aliases.add("coin-" + i);
+			aliases.add("cx" + i);
+			aliases.add("coinname " + i);
+		}
+		fullKeywords = new LinkedHashMap<>(categories);
+		fullKeywords.put("coin", aliases);
+
+		KeywordMatcher.Builder<String> builder = KeywordMatcher.builder();
+		for (Map.Entry<String, List<String>> entry : fullKeywords.entrySet()) {
+			for (String keyword : entry.getValue()) builder.add(keyword, entry.getKey());
+		}
+		matcher = builder.build();
+	}
+
+	@Benchmark
+	public Set<String> containsScanBuiltInCoins() {
+		return containsScan(builtInKeywords);
+	}
+
+	@Benchmark
+	public Set<String> containsScan250Coins() {
+		return containsScan(fullKeywords);
+	}
+
+	@Benchmark
+	public Set<String> matcher250Coins() {
+		Set<String> categories = new HashSet<>();
+		matcher.forEachMatch(prompt, categories::add);
+		return categories;
+	}
+
+	private Set<String> containsScan(Map<String, List<String>> keywords) {
+		String lowerCasePrompt = prompt.toLowerCase();
+		Set<String> categories = new HashSet<>();
+		for (Map.Entry<String, List<String>> entry : keywords.entrySet()) {
+			for (String keyword : entry.getValue()) {
+				if (lowerCasePrompt.contains(keyword.toLowerCase())) {
+					categories.add(entry.getKey());
+				}
+			}
+		}
+		return categories;
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(ChatIntentBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,86 @@
+package com.anil.benchmark;
+
+import com.anil.model.Coin;
+import com.anil.service.CoinMarketsReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one 250-coin /coins/markets page into List&lt;Coin&gt;.
+ * stringThenBind / stringThenTree are the old String + readValue / readTree
+ * paths, streaming is CoinMarketsReader over the raw bytes.
+ *
+ * Compare gc.alloc.rate.norm (bytes per op) with:
+ *   java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main CoinMarketsParsingBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoinMarketsParsingBenchmark {
+
+	ObjectMapper objectMapper;
+	byte[] payload;
+
+	@Setup
+	public void setUp() {
+		objectMapper = new ObjectMapper();
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 0; i < 250; i++) {
+			if (i > 0) json.append(',');
+			json.append(String.format(Locale.ROOT, "{\"id\":\"coin-%d\",\"symbol\":\"c%d\",\"name\":\"Coin %d\"," +
+					"\"image\":\"https://coin-images.coingecko.com/coins/images/%d/large/coin.png\"," +
+					"\"current_price\":%.4f,\"market_cap\":%d,\"market_cap_rank\":%d,\"fully_diluted_valuation\":%d," +
+					"\"total_volume\":%d,\"high_24h\":%.4f,\"low_24h\":%.4f,\"price_change_24h\":%.6f," +
+					"\"price_change_percentage_24h\":%.5f,\"market_cap_change_24h\":%.1f," +
+					"\"market_cap_change_percentage_24h\":%.5f,\"circulating_supply\":%.1f,\"total_supply\":%.1f," +
+					"\"max_supply\":null,\"ath\":%.4f,\"ath_change_percentage\":%.5f,\"ath_date\":\"2021-11-10T14:24:11.849Z\"," +
+					"\"atl\":%.6f,\"atl_change_percentage\":%.3f,\"atl_date\":\"2013-07-06T00:00:00.000Z\"," +
+					"\"roi\":{\"times\":%.5f,\"currency\":\"usd\",\"percentage\":%.3f}," +
+					"\"last_updated\":\"2024-06-01T12:00:00.000Z\"}",
+					i, i, i, i, 100.0 / (i + 1), 1_000_000_000L / (i + 1), i + 1, 1_100_000_000L / (i + 1),
+					50_000_000L / (i + 1), 101.0 / (i + 1), 99.0 / (i + 1), 0.5 / (i + 1), 1.25, 1234567.0, 0.8,
+					21_000_000.0, 21_000_000.0, 200.0 / (i + 1), -40.2, 0.001, 12345.6, 3.2, 320.5));
+		}
+		payload = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Benchmark
+	public List<Coin> stringThenBind() throws Exception {
+		String body = new String(payload, StandardCharsets.UTF_8);
+		return objectMapper.readValue(body, new TypeReference<List<Coin>>() {});
+	}
+
+	@Benchmark
+	public JsonNode stringThenTree() throws Exception {
+		String body = new String(payload, StandardCharsets.UTF_8);
+		return objectMapper.readTree(body);
+	}
+
+	@Benchmark
+	public List<Coin> streaming() throws Exception {
+		try (JsonParser parser = objectMapper.getFactory().createParser(new ByteArrayInputStream(payload))) {
+			return CoinMarketsReader.INSTANCE.read(parser);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(CoinMarketsParsingBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+}
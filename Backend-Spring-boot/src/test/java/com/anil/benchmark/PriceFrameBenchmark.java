@@ -0,0 +1,142 @@
+package com.anil.benchmark;
+
+import com.anil.model.Coin;
+import com.anil.utils.PriceFrameCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One ingestion run's worth of price pushes for a 1000-coin universe, about a
+ * third of which moved: full Coin JSON (what a plain re-send costs) against a
+ * binary delta frame and a binary snapshot, plus decoding both frames.
+ *
+ *   java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main PriceFrameBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceFrameBenchmark {
+
+	static final int COINS = 1000;
+
+	ObjectMapper objectMapper;
+	List<Coin> changedCoins;
+
+	byte[][] ids;
+	double[][] previous;
+	double[][] current;
+	int[] changed;
+
+	PriceFrameCodec.Writer writer;
+	PriceFrameCodec.Reader reader;
+	byte[] deltaFrame;
+	byte[] snapshotFrame;
+
+	@Setup
+	public void setUp() {
+		objectMapper = new ObjectMapper();
+		Random random = new Random(7);
+		ids = new byte[COINS][];
+		previous = new double[COINS][];
+		current = new double[COINS][];
+		List<Integer> moved = new ArrayList<>();
+		changedCoins = new ArrayList<>();
+		for (int i = 0; i < COINS; i++) {
+			ids[i] = ("coin-" + i).getBytes(StandardCharsets.UTF_8);
+			double price = 10_000.0 / (i + 1);
+			previous[i] = new double[]{price, price * 0.01, 1.0, price * 1.02, price * 0.98,
+					1_000_000_000L / (i + 1), 50_000_000L / (i + 1), 1_717_243_200_000L};
+			current[i] = previous[i].clone();
+			if (random.nextInt(3) == 0) {
+				moved.add(i);
+				current[i][PriceFrameCodec.CURRENT_PRICE] = price * (1 + random.nextGaussian() * 0.001);
+				current[i][PriceFrameCodec.TOTAL_VOLUME] += random.nextInt(1_000_000);
+				current[i][PriceFrameCodec.LAST_UPDATED] += 60_000;
+				changedCoins.add(coin(i, current[i]));
+			}
+		}
+		changed = moved.stream().mapToInt(Integer::intValue).toArray();
+
+		writer = new PriceFrameCodec.Writer();
+		reader = new PriceFrameCodec.Reader();
+		deltaFrame = encodeDelta();
+		snapshotFrame = encodeSnapshot();
+	}
+
+	@Benchmark
+	public byte[] fullCoinJson() throws Exception {
+		return objectMapper.writeValueAsBytes(changedCoins);
+	}
+
+	@Benchmark
+	public byte[] encodeDelta() {
+		writer.beginFrame(PriceFrameCodec.DELTA, 2);
+		for (int i : changed) {
+			writer.coin(ids[i], PriceFrameCodec.changedFields(previous[i], current[i]), current[i]);
+		}
+		return writer.endFrame();
+	}
+
+	@Benchmark
+	public byte[] encodeSnapshot() {
+		writer.beginFrame(PriceFrameCodec.SNAPSHOT, 1);
+		for (int i = 0; i < COINS; i++) {
+			writer.coin(ids[i], PriceFrameCodec.ALL_FIELDS, current[i]);
+		}
+		return writer.endFrame();
+	}
+
+	@Benchmark
+	public int decodeDelta(Blackhole blackhole) {
+		return reader.read(deltaFrame, 0, (id, mask, values) -> blackhole.consume(values[PriceFrameCodec.CURRENT_PRICE]));
+	}
+
+	@Benchmark
+	public int decodeSnapshot(Blackhole blackhole) {
+		return reader.read(snapshotFrame, 0, (id, mask, values) -> blackhole.consume(values[PriceFrameCodec.CURRENT_PRICE]));
+	}
+
+	private Coin coin(int i, double[] values) {
+		Coin coin = new Coin();
+		coin.setId("coin-" + i);
+		coin.setSymbol("c" + i);
+		coin.setName("Coin " + i);
+		coin.setImage("https://coin-images.coingecko.com/coins/images/" + i + "/large/coin.png");
+		coin.setCurrentPrice(values[PriceFrameCodec.CURRENT_PRICE]);
+		coin.setPriceChange24h(values[PriceFrameCodec.PRICE_CHANGE_24H]);
+		coin.setPriceChangePercentage24h(values[PriceFrameCodec.PRICE_CHANGE_PERCENTAGE_24H]);
+		coin.setHigh24h(values[PriceFrameCodec.HIGH_24H]);
+		coin.setLow24h(values[PriceFrameCodec.LOW_24H]);
+		coin.setMarketCap((long) values[PriceFrameCodec.MARKET_CAP]);
+		coin.setMarketCapRank(i + 1);
+		coin.setTotalVolume((long) values[PriceFrameCodec.TOTAL_VOLUME]);
+		coin.setCirculatingSupply(21_000_000L);
+		coin.setTotalSupply(21_000_000L);
+		coin.setAth(values[PriceFrameCodec.CURRENT_PRICE] * 1.5);
+		coin.setAthDate(new Date(1_636_554_251_849L));
+		coin.setAtl(0.05);
+		coin.setAtlDate(new Date(1_373_068_800_000L));
+		coin.setLastUpdated(new Date((long) values[PriceFrameCodec.LAST_UPDATED]));
+		return coin;
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder()
+				.include(PriceFrameBenchmark.class.getSimpleName())
+				.addProfiler("gc")
+				.build()).run();
+	}
+}
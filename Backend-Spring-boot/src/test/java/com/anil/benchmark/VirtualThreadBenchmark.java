@@ -0,0 +1,101 @@
+package com.anil.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to get through a burst of {@code requests} concurrent requests that each
+ * block on a slow upstream for {@code upstreamMillis}, handled the way Tomcat
+ * does by default (200 platform threads) versus one virtual thread per request.
+ * Requests per second = requests / score.
+ *
+ * upstream=sleep is a plain blocking call; upstream=synchronized blocks inside a
+ * monitor the way the MySQL driver does, which pins virtual threads to their
+ * carriers and is what the JDBC pinning guard in VirtualThreadConfig is for.
+ *
+ * The virtual rows need JDK 21+; on older JDKs they fail and only the platform
+ * rows are reported. Run main() from the IDE, or after mvn test-compile:
+ *   java -cp target/test-classes:target/classes:<test classpath> org.openjdk.jmh.Main VirtualThreadBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+	@Param({"platform-200", "virtual"})
+	String executor;
+
+	@Param({"sleep", "synchronized"})
+	String upstream;
+
+	@Param({"1000"})
+	int requests;
+
+	@Param({"50"})
+	int upstreamMillis;
+
+	AsyncTaskExecutor tasks;
+
+	@Setup
+	public void setUp() {
+		if (executor.equals("virtual")) {
+			if (Runtime.version().feature() < 21) {
+				throw new IllegalStateException("virtual threads need JDK 21+, running on " + Runtime.version());
+			}
+			tasks = new VirtualThreadTaskExecutor("bench-");
+		} else {
+			ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+			pool.setCorePoolSize(200);
+			pool.setMaxPoolSize(200);
+			pool.setQueueCapacity(Integer.MAX_VALUE);
+			pool.setThreadNamePrefix("bench-");
+			pool.initialize();
+			tasks = pool;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (tasks instanceof ThreadPoolTaskExecutor pool) pool.shutdown();
+	}
+
+	@Benchmark
+	public int burst() throws Exception {
+		List<Future<Integer>> responses = new ArrayList<>(requests);
+		for (int i = 0; i < requests; i++) {
+			int request = i;
+			responses.add(tasks.submit(() -> handle(request)));
+		}
+		int sum = 0;
+		for (Future<Integer> response : responses) sum += response.get();
+		return sum;
+	}
+
+	private int handle(int request) throws InterruptedException {
+		if (upstream.equals("synchronized")) {
+			Object monitor = new Object();
+			synchronized (monitor) {
+				Thread.sleep(upstreamMillis);
+			}
+		} else {
+			Thread.sleep(upstreamMillis);
+		}
+		return request;
+	}
+
+	public static void main(String[] args) throws Exception {
+		new Runner(new OptionsBuilder().include(VirtualThreadBenchmark.class.getSimpleName()).build()).run();
+	}
+}
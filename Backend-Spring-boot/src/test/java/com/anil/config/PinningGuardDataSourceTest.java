@@ -0,0 +1,71 @@
+package com.anil.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PinningGuardDataSourceTest {
+
+	// hands out connections that do nothing but count how many are open
+	private static class CountingDataSource extends AbstractDataSource {
+		final AtomicInteger open = new AtomicInteger();
+
+		@Override
+		public Connection getConnection() {
+			open.incrementAndGet();
+			AtomicInteger closed = new AtomicInteger();
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+						if (method.getName().equals("close") && closed.getAndIncrement() == 0) open.decrementAndGet();
+						return null;
+					});
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) {
+			return getConnection();
+		}
+	}
+
+	@Test
+	void nestedCheckoutWorksAtTheDefaultPermits() throws Exception {
+		CountingDataSource target = new CountingDataSource();
+		PinningGuardDataSource guard = new PinningGuardDataSource(target, VirtualThreadConfig.defaultJdbcPermits());
+
+		try (Connection outer = guard.getConnection(); Connection inner = guard.getConnection()) {
+			assertEquals(2, target.open.get());
+		}
+		assertEquals(0, target.open.get());
+	}
+
+	@Test
+	void nestedCheckoutsShareTheThreadsPermit() throws Exception {
+		PinningGuardDataSource guard = new PinningGuardDataSource(new CountingDataSource(), 1);
+
+		Connection outer = guard.getConnection();
+		Connection inner = guard.getConnection();
+		inner.close();
+		inner.close();
+
+		// still held by the outer connection
+		CompletableFuture<Connection> other = CompletableFuture.supplyAsync(() -> {
+			try {
+				return guard.getConnection();
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		Thread.sleep(100);
+		assertFalse(other.isDone());
+
+		outer.close();
+		other.get(5, TimeUnit.SECONDS).close();
+	}
+}
@@ -0,0 +1,71 @@
+package com.anil.service;
+
+import com.anil.exception.MarketDataUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatBotServiceImplTest {
+
+	@Test
+	void equivalentPromptsShareACacheKey() {
+		String key = ChatBotServiceImpl.normalizePrompt("What is the price of Bitcoin?");
+		assertEquals("price bitcoin", key);
+		assertEquals(key, ChatBotServiceImpl.normalizePrompt("price of bitcoin"));
+		assertEquals(key, ChatBotServiceImpl.normalizePrompt("  tell me the current   PRICE of bitcoin, please "));
+		assertNotEquals(key, ChatBotServiceImpl.normalizePrompt("bitcoin market cap"));
+		assertNotEquals(key, ChatBotServiceImpl.normalizePrompt("ethereum price"));
+	}
+
+	@Test
+	void wordOrderAndRepeatsAreKept() {
+		assertNotEquals(ChatBotServiceImpl.normalizePrompt("eth price in btc"),
+				ChatBotServiceImpl.normalizePrompt("btc price in eth"));
+		assertEquals("eth price btc", ChatBotServiceImpl.normalizePrompt("eth price in btc"));
+		assertNotEquals(ChatBotServiceImpl.normalizePrompt("bitcoin price"),
+				ChatBotServiceImpl.normalizePrompt("bitcoin bitcoin price"));
+	}
+
+	@Test
+	void aSaturatedOutboundExecutorIsA503() {
+		ChatBotServiceImpl service = service(new SimpleAsyncTaskExecutor() {
+			@Override
+			public void execute(Runnable task) {
+				throw new TaskRejectedException("outbound executor is full");
+			}
+		}, 1000);
+
+		MarketDataUnavailableException e = assertThrows(MarketDataUnavailableException.class,
+				() -> service.getCoinDetails("price of bitcoin"));
+		assertInstanceOf(TaskRejectedException.class, e.getCause());
+	}
+
+	@Test
+	void theWaitForAnAnswerIsBounded() {
+		// takes every task and never runs it
+		ChatBotServiceImpl service = service(new SimpleAsyncTaskExecutor() {
+			@Override
+			public void execute(Runnable task) {
+			}
+		}, 50);
+
+		assertThrows(MarketDataUnavailableException.class, () -> service.getCoinDetails("price of bitcoin"));
+	}
+
+	private static ChatBotServiceImpl service(AsyncTaskExecutor outboundExecutor, long answerDeadlineMs) {
+		ChatBotServiceImpl service = new ChatBotServiceImpl();
+		ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(service, "maxCacheEntries", 100L);
+		ReflectionTestUtils.setField(service, "functionCallTtl", 60L);
+		ReflectionTestUtils.setField(service, "answerTtl", 60L);
+		ReflectionTestUtils.setField(service, "outboundExecutor", outboundExecutor);
+		ReflectionTestUtils.setField(service, "answerDeadlineMs", answerDeadlineMs);
+		service.initCaches();
+		return service;
+	}
+}
@@ -0,0 +1,49 @@
+package com.anil.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatIntentClassifierTest {
+
+	private final ChatIntentClassifier classifier = new ChatIntentClassifier();
+
+	@Test
+	void inflectedKeywordsHitTheirCategory() {
+		assertEquals(Set.of("top", "gain"), classifier.classify("show top gainers").categories());
+		assertEquals(Set.of("trend"), classifier.classify("what's trending").categories());
+		assertEquals(Set.of("price", "trend"), classifier.classify("price trends").categories());
+		assertEquals(Set.of("price"), classifier.classify("coin prices").categories());
+		assertEquals(Set.of("invest"), classifier.classify("investing advice").categories());
+		assertEquals(Set.of("loss", "top"), classifier.classify("biggest losers today").categories());
+	}
+
+	@Test
+	void namedCoinsResolveToIdsAndPartsOfWordsDoNotMatch() {
+		ChatIntentClassifier.Intent intent = classifier.classify("Is BTC or ETH worth more?");
+		assertEquals(List.of("bitcoin", "ethereum"), intent.coinIds());
+		assertTrue(intent.categories().containsAll(Set.of("price", "coin")));
+
+		assertEquals(Set.of(), classifier.classify("I need support with my adapter").categories());
+	}
+
+	@Test
+	void aliasesAreLowerCasedIndependentlyOfTheDefaultLocale() {
+		Locale previous = Locale.getDefault();
+		Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+		try {
+			Map<String, String> aliases = new LinkedHashMap<>();
+			ChatIntentClassifier.addAliases(aliases, "internet-computer", "ICP", "Internet Computer");
+			assertEquals(Map.of("internet-computer", "internet-computer", "icp", "internet-computer",
+					"internet computer", "internet-computer"), aliases);
+		} finally {
+			Locale.setDefault(previous);
+		}
+	}
+}
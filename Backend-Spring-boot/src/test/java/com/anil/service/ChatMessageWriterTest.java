@@ -0,0 +1,64 @@
+package com.anil.service;
+
+import com.anil.model.ChatMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatMessageWriterTest {
+
+	// records batches instead of talking to a database
+	static class RecordingJdbcTemplate extends JdbcTemplate {
+		final List<List<String>> batches = new ArrayList<>();
+
+		@Override
+		public synchronized <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+				ParameterizedPreparedStatementSetter<T> pss) {
+			List<String> contents = new ArrayList<>();
+			for (T arg : batchArgs) contents.add(((ChatMessage) arg).getContent());
+			batches.add(contents);
+			return new int[0][];
+		}
+	}
+
+	@Test
+	void batchesQueuedMessagesInOrderAndDrainsOnShutdown() {
+		RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+		ChatMessageWriter writer = new ChatMessageWriter();
+		ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbc);
+		ReflectionTestUtils.setField(writer, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(writer, "flushIntervalMs", 50L);
+		writer.start();
+
+		writer.enqueue(message("q1"), message("a1"), message("q2"), message("a2"));
+		assertTrue(writer.awaitWritten(5000));
+		List<String> written = new ArrayList<>();
+		jdbc.batches.forEach(written::addAll);
+		assertEquals(List.of("q1", "a1", "q2", "a2"), written);
+		assertTrue(jdbc.batches.size() < 4, "expected the messages to share batches: " + jdbc.batches);
+
+		writer.enqueue(message("q3"));
+		writer.shutdown();
+		assertEquals("q3", jdbc.batches.get(jdbc.batches.size() - 1).get(0));
+
+		// after shutdown messages are written on the caller's thread
+		writer.enqueue(message("late"));
+		assertEquals(List.of("late"), jdbc.batches.get(jdbc.batches.size() - 1));
+	}
+
+	private static ChatMessage message(String content) {
+		ChatMessage message = new ChatMessage();
+		message.setContent(content);
+		message.setSender("alice");
+		message.setMessageType("USER");
+		return message;
+	}
+}
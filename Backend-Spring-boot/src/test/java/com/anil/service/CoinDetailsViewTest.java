@@ -0,0 +1,57 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+import com.anil.model.CoinDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoinDetailsViewTest {
+
+	@Test
+	void ingestedCoinsAreServedWithoutAnUpstreamCall() {
+		Coin bitcoin = new Coin();
+		bitcoin.setId("bitcoin");
+		bitcoin.setSymbol("btc");
+		bitcoin.setCurrentPrice(64000.5);
+		bitcoin.setMarketCap(1_260_000_000_000L);
+		bitcoin.setMarketCapRank(1);
+
+		// no MarketDataClient wired: a miss would fail
+		CoinDetailsView view = new CoinDetailsView();
+		view.onMarketDataRefreshed(new MarketDataRefreshedEvent(List.of(bitcoin), List.of(bitcoin), 1, Instant.now()));
+
+		CoinDTO dto = view.find(" Bitcoin ");
+		assertEquals("btc", dto.getSymbol());
+		assertEquals(64000.5, dto.getCurrentPrice());
+		assertEquals(1.26e12, dto.getMarketCap());
+		assertEquals(1, dto.getMarketCapRank());
+	}
+
+	@Test
+	void leanDetailsBodyBindsToTypedFields() throws Exception {
+		String json = "{\"id\":\"solana\",\"symbol\":\"sol\",\"name\":\"Solana\",\"market_cap_rank\":5,"
+				+ "\"description\":{\"en\":\"...\"},\"image\":{\"thumb\":\"t\",\"large\":\"l.png\"},"
+				+ "\"market_data\":{\"current_price\":{\"usd\":142,\"eur\":130.5},\"market_cap\":{\"usd\":6.5E10},"
+				+ "\"total_volume\":{\"usd\":2100000000},\"high_24h\":{},\"price_change_24h\":-1.25,"
+				+ "\"total_supply\":null,\"circulating_supply\":460000000}}";
+
+		CoinDetailsView.CoinDetailsBody body = new ObjectMapper().readValue(json, CoinDetailsView.CoinDetailsBody.class);
+		CoinDTO dto = CoinDetailsView.toDto(body);
+
+		assertEquals("solana", dto.getId());
+		assertEquals("l.png", dto.getImage());
+		assertEquals(5, dto.getMarketCapRank());
+		assertEquals(142.0, dto.getCurrentPrice());
+		assertEquals(6.5e10, dto.getMarketCap());
+		assertEquals(2.1e9, dto.getTotalVolume());
+		assertEquals(0.0, dto.getHigh24h());
+		assertEquals(-1.25, dto.getPriceChange24h());
+		assertEquals(0.0, dto.getTotalSupply());
+		assertEquals(4.6e8, dto.getCirculatingSupply());
+	}
+}
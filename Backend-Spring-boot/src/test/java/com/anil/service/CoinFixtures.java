@@ -0,0 +1,37 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// coins and assertions shared by the market index tests
+final class CoinFixtures {
+
+	private CoinFixtures() {
+	}
+
+	static Coin coin(String id, String symbol, String name, int rank) {
+		Coin coin = new Coin();
+		coin.setId(id);
+		coin.setSymbol(symbol);
+		coin.setName(name);
+		coin.setMarketCapRank(rank);
+		return coin;
+	}
+
+	static Coin coin(String id, double change, long volume, long marketCap) {
+		Coin coin = new Coin();
+		coin.setId(id);
+		coin.setPriceChangePercentage24h(change);
+		coin.setTotalVolume(volume);
+		coin.setMarketCap(marketCap);
+		return coin;
+	}
+
+	static List<String> ids(List<Coin> coins) {
+		List<String> ids = new ArrayList<>();
+		for (Coin coin : coins) ids.add(coin.getId());
+		return ids;
+	}
+}
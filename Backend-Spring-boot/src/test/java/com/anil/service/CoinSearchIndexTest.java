@@ -0,0 +1,41 @@
+package com.anil.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.anil.service.CoinFixtures.coin;
+import static com.anil.service.CoinFixtures.ids;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoinSearchIndexTest {
+
+	@Test
+	void prefixMatchesRankExactSymbolFirstThenMarketCap() {
+		CoinSearchIndex index = new CoinSearchIndex();
+		index.index(List.of(
+				coin("bitcoin", "btc", "Bitcoin", 1),
+				coin("wrapped-bitcoin", "wbtc", "Wrapped Bitcoin", 17),
+				coin("bitcoin-cash", "bch", "Bitcoin Cash", 19),
+				coin("binancecoin", "bnb", "BNB", 4),
+				coin("bittensor", "tao", "Bittensor", 30)));
+
+		assertEquals(List.of("bitcoin", "wrapped-bitcoin", "bitcoin-cash", "bittensor"), ids(index.search("bit")));
+		assertEquals(List.of("bitcoin", "binancecoin", "bitcoin-cash", "wrapped-bitcoin", "bittensor"), ids(index.search("B")));
+		assertEquals(List.of("bitcoin-cash"), ids(index.search("bch")));
+		assertEquals(List.of("bitcoin-cash"), ids(index.search("cash")));
+		assertTrue(index.search("doge").isEmpty());
+		assertTrue(index.search("  ").isEmpty());
+	}
+
+	@Test
+	void newCoinsAreAddedAndKnownCoinsFollowTheLatestRank() {
+		CoinSearchIndex index = new CoinSearchIndex();
+		index.index(List.of(coin("solana", "sol", "Solana", 5), coin("solv-protocol", "solv", "Solv Protocol", 300)));
+		index.index(List.of(coin("solana", "sol", "Solana", 5), coin("solv-protocol", "solv", "Solv Protocol", 3),
+				coin("dogecoin", "doge", "Dogecoin", 8)));
+
+		assertEquals(List.of("solv-protocol", "solana"), ids(index.search("so")));
+		assertEquals(List.of("dogecoin"), ids(index.search("dog")));
+	}
+}
@@ -0,0 +1,83 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+import com.anil.model.EntityChangedEvent;
+import com.anil.model.User;
+import com.anil.model.Watchlist;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataVersionsTest {
+
+	@Test
+	void userTagsMoveWithTheirOwnRowsAndWithCoins() {
+		DataVersions versions = new DataVersions();
+		String alice = versions.userETag("assets", "alice@example.com");
+		String bob = versions.userETag("assets", "bob@example.com");
+		assertEquals(alice, versions.userETag("assets", "alice@example.com"));
+		assertNotEquals(alice, versions.userETag("watchlist", "alice@example.com"));
+
+		versions.userDataChanged("alice@example.com");
+		String aliceAfterWrite = versions.userETag("assets", "alice@example.com");
+		assertNotEquals(alice, aliceAfterWrite);
+		assertEquals(bob, versions.userETag("assets", "bob@example.com"));
+
+		// a refresh that changed nothing keeps the tags
+		versions.onMarketDataRefreshed(new MarketDataRefreshedEvent(List.of(), List.of(), 1, Instant.now()));
+		assertEquals(aliceAfterWrite, versions.userETag("assets", "alice@example.com"));
+
+		versions.onMarketDataRefreshed(new MarketDataRefreshedEvent(List.of(), List.of(new Coin()), 2, Instant.now()));
+		assertNotEquals(aliceAfterWrite, versions.userETag("assets", "alice@example.com"));
+		assertNotEquals(bob, versions.userETag("assets", "bob@example.com"));
+	}
+
+	@Test
+	void writesBumpOnlyWhenTheirTransactionCommits() {
+		DataVersions versions = new DataVersions();
+		String before = versions.userETag("watchlist", "alice@example.com");
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			versions.userDataChanged("alice@example.com");
+			List<TransactionSynchronization> pending = TransactionSynchronizationManager.getSynchronizations();
+			TransactionSynchronizationUtils.invokeAfterCompletion(pending, TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(before, versions.userETag("watchlist", "alice@example.com"));
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			versions.userDataChanged("alice@example.com");
+			List<TransactionSynchronization> pending = TransactionSynchronizationManager.getSynchronizations();
+			TransactionSynchronizationUtils.invokeAfterCommit(pending);
+			TransactionSynchronizationUtils.invokeAfterCompletion(pending, TransactionSynchronization.STATUS_COMMITTED);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertNotEquals(before, versions.userETag("watchlist", "alice@example.com"));
+	}
+
+	@Test
+	void entityEventsBumpTheOwningUser() {
+		DataVersions versions = new DataVersions();
+		String alice = versions.userETag("watchlist", "alice@example.com");
+		String bob = versions.userETag("watchlist", "bob@example.com");
+		User user = new User();
+		user.setEmail("alice@example.com");
+		Watchlist watchlist = new Watchlist();
+		watchlist.setUser(user);
+
+		versions.onEntityChanged(new EntityChangedEvent(watchlist));
+
+		assertNotEquals(alice, versions.userETag("watchlist", "alice@example.com"));
+		assertEquals(bob, versions.userETag("watchlist", "bob@example.com"));
+	}
+}
@@ -0,0 +1,101 @@
+package com.anil.service;
+
+import com.anil.domain.MarketDataPriority;
+import com.anil.exception.MarketDataUnavailableException;
+import com.anil.model.Coin;
+import com.anil.repository.CoinRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataIngestionServiceTest {
+
+	@Test
+	void aRunThatLosesAPageIsPublishedAsPartialAndDoesNotPruneListeners() throws Exception {
+		// two full pages of two coins, then a short third page
+		List<List<Coin>> pages = new ArrayList<>(List.of(
+				List.of(coin("bitcoin", 1), coin("ethereum", 2)),
+				List.of(coin("tether", 3), coin("solana", 4)),
+				List.of(coin("dogecoin", 5))));
+		Set<Integer> failing = new HashSet<>();
+
+		MarketDataClient client = new MarketDataClient() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T> T stream(String path, MarketDataPriority priority, BodyReader<T> reader) {
+				int page = Integer.parseInt(path.substring(path.lastIndexOf('=') + 1));
+				if (failing.contains(page)) {
+					throw new MarketDataUnavailableException("429", 30, null);
+				}
+				return (T) pages.get(page - 1);
+			}
+		};
+		MarketRanking ranking = new MarketRanking();
+		List<MarketDataRefreshedEvent> events = new ArrayList<>();
+
+		MarketDataIngestionService ingestion = new MarketDataIngestionService();
+		ReflectionTestUtils.setField(ingestion, "marketDataClient", client);
+		ReflectionTestUtils.setField(ingestion, "coinRepository", emptyCoinRepository());
+		ReflectionTestUtils.setField(ingestion, "jdbcTemplate", new JdbcTemplate() {
+			@Override
+			public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+					ParameterizedPreparedStatementSetter<T> pss) {
+				return new int[0][];
+			}
+		});
+		ReflectionTestUtils.setField(ingestion, "eventPublisher", (ApplicationEventPublisher) event -> {
+			MarketDataRefreshedEvent refreshed = (MarketDataRefreshedEvent) event;
+			events.add(refreshed);
+			ranking.onMarketDataRefreshed(refreshed);
+		});
+		ReflectionTestUtils.setField(ingestion, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(ingestion, "perPage", 2);
+		ReflectionTestUtils.setField(ingestion, "maxPages", 4);
+
+		ingestion.refresh();
+		assertTrue(events.get(0).complete());
+		assertEquals(5, ranking.top(MarketRanking.Metric.MARKET_CAP, 10).size());
+
+		failing.add(2);
+		ingestion.refresh();
+		MarketDataRefreshedEvent partial = events.get(1);
+		assertFalse(partial.complete());
+		assertEquals(2, partial.coins().size());
+		// tether, solana and dogecoin were on or after the failed page and must survive
+		assertEquals(5, ranking.top(MarketRanking.Metric.MARKET_CAP, 10).size());
+
+		failing.clear();
+		pages.set(2, List.of());
+		ingestion.refresh();
+		assertTrue(events.get(2).complete());
+		assertEquals(4, ranking.top(MarketRanking.Metric.MARKET_CAP, 10).size());
+	}
+
+	private static CoinRepository emptyCoinRepository() {
+		return (CoinRepository) Proxy.newProxyInstance(CoinRepository.class.getClassLoader(),
+				new Class<?>[]{CoinRepository.class}, (proxy, method, args) -> {
+					if (method.getName().equals("findAll")) return List.of();
+					throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private static Coin coin(String id, int rank) {
+		Coin coin = new Coin();
+		coin.setId(id);
+		coin.setMarketCapRank(rank);
+		coin.setMarketCap(1000L - rank);
+		return coin;
+	}
+}
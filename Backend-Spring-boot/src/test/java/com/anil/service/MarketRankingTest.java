@@ -0,0 +1,54 @@
+package com.anil.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.anil.service.CoinFixtures.coin;
+import static com.anil.service.CoinFixtures.ids;
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketRankingTest {
+
+	@Test
+	void ranksByEachMetricFromBothEnds() {
+		MarketRanking ranking = new MarketRanking();
+		ranking.apply(List.of(
+				coin("bitcoin", 2.5, 900, 5000),
+				coin("ethereum", -4.0, 700, 3000),
+				coin("solana", 11.0, 400, 800),
+				coin("dogecoin", -9.5, 100, 600)));
+
+		assertEquals(List.of("solana", "bitcoin"), ids(ranking.top(MarketRanking.Metric.PRICE_CHANGE_24H, 2)));
+		assertEquals(List.of("dogecoin", "ethereum"), ids(ranking.bottom(MarketRanking.Metric.PRICE_CHANGE_24H, 2)));
+		assertEquals(List.of("bitcoin"), ids(ranking.top(MarketRanking.Metric.TOTAL_VOLUME, 1)));
+		assertEquals(List.of("bitcoin", "ethereum", "solana", "dogecoin"),
+				ids(ranking.top(MarketRanking.Metric.MARKET_CAP, 50)));
+	}
+
+	@Test
+	void refreshRepositionsChangedCoinsAndDropsMissingOnes() {
+		MarketRanking ranking = new MarketRanking();
+		ranking.apply(List.of(
+				coin("bitcoin", 2.5, 900, 5000),
+				coin("ethereum", -4.0, 700, 3000),
+				coin("solana", 11.0, 400, 800)));
+
+		ranking.apply(List.of(
+				coin("bitcoin", 2.5, 900, 5000),
+				coin("ethereum", 15.0, 700, 3100)));
+
+		assertEquals(List.of("ethereum", "bitcoin"), ids(ranking.top(MarketRanking.Metric.PRICE_CHANGE_24H, 10)));
+		assertEquals(List.of("bitcoin", "ethereum"), ids(ranking.bottom(MarketRanking.Metric.PRICE_CHANGE_24H, 10)));
+		assertEquals(2, ranking.top(MarketRanking.Metric.MARKET_CAP, 10).size());
+	}
+
+	@Test
+	void equalValuesAreAllKept() {
+		MarketRanking ranking = new MarketRanking();
+		ranking.apply(List.of(coin("a", 1.0, 10, 10), coin("b", 1.0, 10, 10), coin("c", 1.0, 10, 10)));
+
+		assertEquals(List.of("a", "b", "c"), ids(ranking.top(MarketRanking.Metric.PRICE_CHANGE_24H, 3)));
+		assertTrue(ranking.top(MarketRanking.Metric.PRICE_CHANGE_24H, 0).isEmpty());
+	}
+}
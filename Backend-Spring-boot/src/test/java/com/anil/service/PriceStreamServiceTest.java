@@ -0,0 +1,98 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.anil.service.CoinFixtures.coin;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceStreamServiceTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private PriceStreamService service;
+
+	// a client that stops reading: the first send blocks until the sender is interrupted
+	private static class StalledEmitter extends SseEmitter {
+		final CountDownLatch sending = new CountDownLatch(1);
+
+		@Override
+		public void send(SseEventBuilder event) throws IOException {
+			sending.countDown();
+			try {
+				new CountDownLatch(1).await();
+			} catch (InterruptedException e) {
+				throw new IOException("write interrupted", e);
+			}
+		}
+	}
+
+	private static class ReadingEmitter extends SseEmitter {
+		final AtomicInteger received = new AtomicInteger();
+
+		@Override
+		public void send(SseEventBuilder event) {
+			received.incrementAndGet();
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (service != null) service.shutdown();
+	}
+
+	@Test
+	void aClientThatStopsReadingDoesNotStallTheOthers() throws Exception {
+		StalledEmitter stalledEmitter = new StalledEmitter();
+		ReadingEmitter first = new ReadingEmitter();
+		ReadingEmitter second = new ReadingEmitter();
+		List<SseEmitter> emitters = List.of(stalledEmitter, first, second);
+		AtomicInteger opened = new AtomicInteger();
+		service = new PriceStreamService() {
+			@Override
+			SseEmitter newEmitter(long timeoutMs) {
+				return emitters.get(opened.getAndIncrement());
+			}
+		};
+		ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+		ReflectionTestUtils.setField(service, "maxSubscribers", 10);
+		ReflectionTestUtils.setField(service, "maxCoinsPerSubscriber", 10);
+		ReflectionTestUtils.setField(service, "timeoutMs", 60_000L);
+		ReflectionTestUtils.setField(service, "snapshotEvery", 30);
+		// one sender, so without the deadline the stalled client would hold it for good
+		ReflectionTestUtils.setField(service, "senderThreads", 1);
+		ReflectionTestUtils.setField(service, "sendTimeoutMs", 100L);
+		service.init();
+
+		Coin bitcoin = coin("bitcoin", "btc", "Bitcoin", 1);
+		service.subscribe(List.of("bitcoin"));
+		service.onMarketDataRefreshed(new MarketDataRefreshedEvent(List.of(bitcoin), List.of(bitcoin), 1, Instant.now()));
+		assertTrue(stalledEmitter.sending.await(5, TimeUnit.SECONDS));
+
+		// both start with the latest price, queued behind the stalled send
+		service.subscribe(List.of("bitcoin"));
+		service.subscribe(List.of("bitcoin"));
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while ((first.received.get() == 0 || second.received.get() == 0) && System.nanoTime() < deadline) {
+			service.expireStalledSends();
+			Thread.sleep(20);
+		}
+		assertEquals(1, first.received.get());
+		assertEquals(1, second.received.get());
+		assertEquals(1, meterRegistry.get("market.stream.stalled").counter().count());
+		assertEquals(2, meterRegistry.get("market.stream.subscribers").gauge().value());
+	}
+}
@@ -0,0 +1,40 @@
+package com.anil.service;
+
+import com.anil.model.Coin;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickStoreTest {
+
+	@Test
+	void ringsSurvivePartialRunsAndAreFreedAfterRepeatedAbsence() {
+		TickStore store = new TickStore();
+		store.record(List.of(coin("bitcoin", 1000), coin("solana", 1000)), 1000, true);
+
+		// solana's page failed: no pruning at all
+		for (int run = 2; run <= 10; run++) {
+			store.record(List.of(coin("bitcoin", run * 1000)), run * 1000, false);
+		}
+		assertEquals(1, store.ticks("solana").size());
+
+		// missing from complete runs: kept twice, freed on the third
+		store.record(List.of(coin("bitcoin", 11000)), 11000, true);
+		store.record(List.of(coin("bitcoin", 12000)), 12000, true);
+		assertNotNull(store.ticks("solana"));
+		store.record(List.of(coin("bitcoin", 13000)), 13000, true);
+		assertNull(store.ticks("solana"));
+		assertEquals(13, store.ticks("bitcoin").size());
+	}
+
+	private static Coin coin(String id, long updatedAt) {
+		Coin coin = new Coin();
+		coin.setId(id);
+		coin.setCurrentPrice(100);
+		coin.setLastUpdated(new Date(updatedAt));
+		return coin;
+	}
+}
@@ -0,0 +1,444 @@
+package com.anil.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Local stand-in for the CoinGecko v3 API, for running the backend and load
+ * tests offline. Start it and point the backend at it:
+ * <pre>
+ *   mvn -Pcoingecko-standin test-compile exec:java -Dexec.args="--port=8089 --latency-ms=120 --rate-limit-per-minute=30"
+ *   mvn spring-boot:run -Dspring-boot.run.arguments=--coingecko.api.base-url=http://localhost:8089/api/v3
+ * </pre>
+ *
+ * Serves /coins/markets (paged and ordered over the coingecko/markets.json
+ * universe), /coins/{id}, /coins/{id}/market_chart[/range], /search,
+ * /search/trending, /simple/price and /global. Chart history is a deterministic
+ * function of coin id and time, so full loads and tail refreshes line up.
+ *
+ * Options ({@code --name=value}):
+ * <ul>
+ *   <li>port (8089), threads (200)</li>
+ *   <li>latency-ms, jitter-ms: added to every response</li>
+ *   <li>error-rate: share of requests answered 500</li>
+ *   <li>throttle-rate: share of requests answered 429</li>
+ *   <li>rate-limit-per-minute: 429 with Retry-After once exceeded, 0 = off</li>
+ *   <li>price-drift: relative random walk applied to prices per markets call (0.001)</li>
+ *   <li>record: upstream base url; requests are proxied and their bodies saved to record-dir</li>
+ *   <li>record-dir (target/coingecko-recorded): recorded bodies found here are replayed first</li>
+ * </ul>
+ */
+public class CoinGeckoStandIn {
+
+    public static final String BASE_PATH = "/api/v3";
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+
+    public static class Options {
+        public int port = 8089;
+        public int threads = 200;
+        public long latencyMs;
+        public long jitterMs;
+        public double errorRate;
+        public double throttleRate;
+        public int rateLimitPerMinute;
+        public double priceDrift = 0.001;
+        public String record;
+        public String apiKey = System.getenv("COINGECKO_API_KEY");
+        public Path recordDir = Path.of("target", "coingecko-recorded");
+
+        public static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                if (!arg.startsWith("--") || !arg.contains("=")) {
+                    throw new IllegalArgumentException("expected --name=value, got " + arg);
+                }
+                String name = arg.substring(2, arg.indexOf('='));
+                String value = arg.substring(arg.indexOf('=') + 1);
+                switch (name) {
+                    case "port" -> options.port = Integer.parseInt(value);
+                    case "threads" -> options.threads = Integer.parseInt(value);
+                    case "latency-ms" -> options.latencyMs = Long.parseLong(value);
+                    case "jitter-ms" -> options.jitterMs = Long.parseLong(value);
+                    case "error-rate" -> options.errorRate = Double.parseDouble(value);
+                    case "throttle-rate" -> options.throttleRate = Double.parseDouble(value);
+                    case "rate-limit-per-minute" -> options.rateLimitPerMinute = Integer.parseInt(value);
+                    case "price-drift" -> options.priceDrift = Double.parseDouble(value);
+                    case "record" -> options.record = value;
+                    case "api-key" -> options.apiKey = value;
+                    case "record-dir" -> options.recordDir = Path.of(value);
+                    default -> throw new IllegalArgumentException("unknown option --" + name);
+                }
+            }
+            return options;
+        }
+    }
+
+    private final Options options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ObjectNode> universe = new ArrayList<>();
+    private final Map<String, ObjectNode> byId = new HashMap<>();
+    private final byte[] trending;
+    private final byte[] global;
+    private final HttpClient upstream;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // fixed one-minute window for rate-limit-per-minute
+    private long windowStart;
+    private int windowCount;
+
+    public CoinGeckoStandIn(Options options) throws IOException {
+        this.options = options;
+        for (JsonNode coin : objectMapper.readTree(fixture("markets.json"))) {
+            universe.add((ObjectNode) coin);
+            byId.put(coin.get("id").asText(), (ObjectNode) coin);
+        }
+        trending = fixture("trending.json");
+        global = fixture("global.json");
+        upstream = options.record == null ? null : HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        CoinGeckoStandIn standIn = new CoinGeckoStandIn(Options.parse(args));
+        standIn.start();
+        System.out.println("CoinGecko stand-in listening on " + standIn.baseUrl());
+    }
+
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", options.port), 1024);
+        executor = Executors.newFixedThreadPool(options.threads);
+        server.setExecutor(executor);
+        server.createContext(BASE_PATH, this::handle);
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /** Value for {@code coingecko.api.base-url}. */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + BASE_PATH;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getRawPath().substring(BASE_PATH.length());
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            Map<String, String> query = parseQuery(rawQuery);
+
+            delay();
+            if (rateLimited() || ThreadLocalRandom.current().nextDouble() < options.throttleRate) {
+                exchange.getResponseHeaders().set("Retry-After", Long.toString(retryAfterSeconds()));
+                send(exchange, 429, "{\"status\":{\"error_code\":429,\"error_message\":\"You've exceeded the Rate Limit.\"}}"
+                        .getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            if (ThreadLocalRandom.current().nextDouble() < options.errorRate) {
+                send(exchange, 500, "{\"error\":\"stand-in injected failure\"}".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            String pathAndQuery = rawQuery == null ? path : path + "?" + rawQuery;
+            Path recorded = options.recordDir.resolve(recordingName(pathAndQuery));
+            if (Files.exists(recorded)) {
+                send(exchange, 200, Files.readAllBytes(recorded));
+            } else if (upstream != null) {
+                record(exchange, pathAndQuery, recorded);
+            } else {
+                route(exchange, path, query);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Stand-in failed on " + exchange.getRequestURI() + ": " + e);
+            send(exchange, 500, ("{\"error\":\"" + e.getClass().getSimpleName() + "\"}").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void route(HttpExchange exchange, String path, Map<String, String> query) throws IOException {
+        String[] parts = path.split("/");
+        if (path.equals("/coins/markets")) {
+            json(exchange, locked(() -> markets(query)));
+        } else if (path.equals("/search/trending")) {
+            send(exchange, 200, trending);
+        } else if (path.equals("/search")) {
+            json(exchange, locked(() -> search(query.getOrDefault("query", ""))));
+        } else if (path.equals("/global")) {
+            send(exchange, 200, global);
+        } else if (path.equals("/simple/price")) {
+            json(exchange, locked(() -> simplePrice(query.getOrDefault("ids", ""))));
+        } else if (parts.length >= 3 && parts[1].equals("coins") && byId.containsKey(parts[2])) {
+            ObjectNode coin = byId.get(parts[2]);
+            long now = System.currentTimeMillis();
+            if (parts.length == 3) {
+                json(exchange, locked(() -> details(coin)));
+            } else if (parts.length == 4 && parts[3].equals("market_chart")) {
+                int days = Integer.parseInt(query.getOrDefault("days", "1"));
+                json(exchange, locked(() -> chart(coin, now - days * DAY, now, now)));
+            } else if (parts.length == 5 && parts[3].equals("market_chart") && parts[4].equals("range")) {
+                long from = Long.parseLong(query.get("from")) * 1000;
+                long to = Math.min(Long.parseLong(query.get("to")) * 1000, now);
+                json(exchange, locked(() -> chart(coin, from, to, now)));
+            } else {
+                send(exchange, 404, "{\"error\":\"Not found\"}".getBytes(StandardCharsets.UTF_8));
+            }
+        } else if (parts.length >= 3 && parts[1].equals("coins")) {
+            send(exchange, 404, "{\"error\":\"coin not found\"}".getBytes(StandardCharsets.UTF_8));
+        } else {
+            send(exchange, 404, "{\"error\":\"Not found\"}".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    // fixture nodes are mutated by drift(); every read and write goes through here
+    private JsonNode locked(Supplier<JsonNode> body) {
+        synchronized (universe) {
+            return body.get();
+        }
+    }
+
+    private ArrayNode markets(Map<String, String> query) {
+        drift();
+        List<ObjectNode> ordered = new ArrayList<>(universe);
+        String order = query.getOrDefault("order", "market_cap_desc");
+        Comparator<ObjectNode> comparator = switch (order) {
+            case "volume_desc", "volume_asc" -> Comparator.comparingDouble(c -> c.get("total_volume").asDouble());
+            case "id_asc", "id_desc" -> Comparator.comparing(c -> c.get("id").asText());
+            default -> Comparator.comparingDouble(c -> c.get("market_cap").asDouble());
+        };
+        ordered.sort(order.endsWith("_asc") ? comparator : comparator.reversed());
+
+        int perPage = Integer.parseInt(query.getOrDefault("per_page", "100"));
+        int page = Integer.parseInt(query.getOrDefault("page", "1"));
+        ArrayNode result = objectMapper.createArrayNode();
+        for (int i = (page - 1) * perPage; i < Math.min(page * perPage, ordered.size()); i++) {
+            result.add(ordered.get(i).deepCopy());
+        }
+        return result;
+    }
+
+    // moves prices a little on every markets call so ingestion sees changes
+    private void drift() {
+        if (options.priceDrift <= 0) return;
+        String now = Instant.now().toString();
+        for (ObjectNode coin : universe) {
+            double step = ThreadLocalRandom.current().nextGaussian() * options.priceDrift;
+            double price = coin.get("current_price").asDouble() * (1 + step);
+            coin.put("current_price", price);
+            coin.put("market_cap", (long) (coin.get("market_cap").asDouble() * (1 + step)));
+            coin.put("price_change_percentage_24h", coin.get("price_change_percentage_24h").asDouble() + step * 100);
+            coin.put("last_updated", now);
+        }
+    }
+
+    private ObjectNode details(ObjectNode coin) {
+        ObjectNode details = objectMapper.createObjectNode();
+        details.put("id", coin.get("id").asText());
+        details.put("symbol", coin.get("symbol").asText());
+        details.put("name", coin.get("name").asText());
+        details.put("market_cap_rank", coin.get("market_cap_rank").asInt());
+        String large = coin.get("image").asText();
+        details.putObject("image")
+                .put("thumb", large.replace("/large/", "/thumb/"))
+                .put("small", large.replace("/large/", "/small/"))
+                .put("large", large);
+        ObjectNode market = details.putObject("market_data");
+        for (String field : new String[]{"current_price", "market_cap", "total_volume", "high_24h", "low_24h",
+                "ath", "atl", "fully_diluted_valuation"}) {
+            market.putObject(field).set("usd", coin.get(field));
+        }
+        for (String field : new String[]{"price_change_24h", "price_change_percentage_24h", "market_cap_change_24h",
+                "market_cap_change_percentage_24h", "circulating_supply", "total_supply", "max_supply", "last_updated"}) {
+            market.set(field, coin.get(field));
+        }
+        details.set("last_updated", coin.get("last_updated"));
+        return details;
+    }
+
+    private ObjectNode search(String keyword) {
+        String q = keyword.trim().toLowerCase(Locale.ROOT);
+        ObjectNode result = objectMapper.createObjectNode();
+        ArrayNode coins = result.putArray("coins");
+        for (ObjectNode coin : universe) {
+            if (q.isEmpty()) break;
+            if (coin.get("id").asText().startsWith(q) || coin.get("symbol").asText().startsWith(q)
+                    || coin.get("name").asText().toLowerCase(Locale.ROOT).contains(q)) {
+                String large = coin.get("image").asText();
+                coins.addObject()
+                        .put("id", coin.get("id").asText())
+                        .put("name", coin.get("name").asText())
+                        .put("api_symbol", coin.get("id").asText())
+                        .put("symbol", coin.get("symbol").asText().toUpperCase(Locale.ROOT))
+                        .put("market_cap_rank", coin.get("market_cap_rank").asInt())
+                        .put("thumb", large.replace("/large/", "/thumb/"))
+                        .put("large", large);
+            }
+        }
+        result.putArray("exchanges");
+        result.putArray("icos");
+        result.putArray("categories");
+        result.putArray("nfts");
+        return result;
+    }
+
+    private ObjectNode simplePrice(String ids) {
+        ObjectNode result = objectMapper.createObjectNode();
+        for (String id : ids.split(",")) {
+            ObjectNode coin = byId.get(id.trim());
+            if (coin == null) continue;
+            result.putObject(coin.get("id").asText())
+                    .put("usd", coin.get("current_price").asDouble())
+                    .put("usd_market_cap", coin.get("market_cap").asDouble())
+                    .put("usd_24h_change", coin.get("price_change_percentage_24h").asDouble());
+        }
+        return result;
+    }
+
+    /**
+     * Points between {@code from} and {@code to} at CoinGecko's granularity for the
+     * window length, plus a provisional point at {@code now} when the window reaches it.
+     */
+    private ObjectNode chart(ObjectNode coin, long from, long to, long now) {
+        long window = to - from;
+        long step = window <= DAY ? 5 * MINUTE : window <= 90 * DAY ? HOUR : DAY;
+        double price = coin.get("current_price").asDouble();
+        double marketCap = coin.get("market_cap").asDouble();
+        double volume = coin.get("total_volume").asDouble();
+        long seed = coin.get("id").asText().hashCode();
+
+        ObjectNode chart = objectMapper.createObjectNode();
+        ArrayNode prices = chart.putArray("prices");
+        ArrayNode caps = chart.putArray("market_caps");
+        ArrayNode volumes = chart.putArray("total_volumes");
+        List<Long> times = new ArrayList<>();
+        for (long t = (from / step + 1) * step; t <= to; t += step) times.add(t);
+        if (to >= now - MINUTE && (times.isEmpty() || times.get(times.size() - 1) < now)) times.add(now);
+
+        double anchor = wave(seed, now);
+        for (long t : times) {
+            double factor = Math.exp(wave(seed, t) - anchor);
+            prices.addArray().add(t).add(price * factor);
+            caps.addArray().add(t).add(marketCap * factor);
+            volumes.addArray().add(t).add(volume * (0.8 + 0.4 * (0.5 + 0.5 * Math.sin(t / (3.0 * HOUR) + seed))));
+        }
+        return chart;
+    }
+
+    // smooth, repeatable log-price path: the same coin and instant always give the same value
+    private double wave(long seed, long t) {
+        return 0.08 * Math.sin(t / (9.0 * DAY) + seed)
+                + 0.03 * Math.sin(t / (1.3 * DAY) + seed * 0.7)
+                + 0.006 * Math.sin(t / (2.0 * HOUR) + seed * 0.3);
+    }
+
+    private void record(HttpExchange exchange, String pathAndQuery, Path target) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(options.record + pathAndQuery))
+                .timeout(Duration.ofSeconds(20)).GET();
+        if (options.apiKey != null) request.header("x-cg-demo-api-key", options.apiKey);
+        HttpResponse<byte[]> response;
+        try {
+            response = upstream.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+        if (response.statusCode() == 200) {
+            Files.createDirectories(target.getParent());
+            Files.write(target, response.body());
+        }
+        response.headers().firstValue("Retry-After").ifPresent(v -> exchange.getResponseHeaders().set("Retry-After", v));
+        send(exchange, response.statusCode(), response.body());
+    }
+
+    private static String recordingName(String pathAndQuery) {
+        return pathAndQuery.substring(1).replaceAll("[^A-Za-z0-9._=-]", "_") + ".json";
+    }
+
+    private void delay() {
+        long millis = options.latencyMs + (options.jitterMs > 0 ? ThreadLocalRandom.current().nextLong(options.jitterMs + 1) : 0);
+        if (millis <= 0) return;
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized boolean rateLimited() {
+        if (options.rateLimitPerMinute <= 0) return false;
+        long now = System.currentTimeMillis();
+        if (now - windowStart >= MINUTE) {
+            windowStart = now;
+            windowCount = 0;
+        }
+        return ++windowCount > options.rateLimitPerMinute;
+    }
+
+    private synchronized long retryAfterSeconds() {
+        if (options.rateLimitPerMinute <= 0) return 1;
+        return Math.max(1, (windowStart + MINUTE - System.currentTimeMillis() + 999) / 1000);
+    }
+
+    private void json(HttpExchange exchange, JsonNode body) throws IOException {
+        send(exchange, 200, objectMapper.writeValueAsBytes(body));
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) continue;
+            query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = CoinGeckoStandIn.class.getResourceAsStream("/coingecko/" + name)) {
+            if (in == null) throw new IOException("missing fixture coingecko/" + name);
+            return in.readAllBytes();
+        }
+    }
+}
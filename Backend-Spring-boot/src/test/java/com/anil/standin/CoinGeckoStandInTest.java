@@ -0,0 +1,74 @@
+package com.anil.standin;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoinGeckoStandInTest {
+
+	private final HttpClient client = HttpClient.newHttpClient();
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private CoinGeckoStandIn standIn;
+
+	@AfterEach
+	void stop() {
+		if (standIn != null) standIn.stop();
+	}
+
+	@Test
+	void servesPagedMarketsDetailsChartsAndSearch() throws Exception {
+		start("--port=0");
+
+		JsonNode page = getJson("/coins/markets?vs_currency=usd&order=market_cap_desc&per_page=10&page=2");
+		assertEquals(10, page.size());
+		assertEquals(11, page.get(0).get("market_cap_rank").asInt());
+
+		JsonNode bitcoin = getJson("/coins/bitcoin");
+		assertEquals("btc", bitcoin.get("symbol").asText());
+		assertTrue(bitcoin.at("/market_data/current_price/usd").asDouble() > 0);
+
+		JsonNode chart = getJson("/coins/ethereum/market_chart?vs_currency=usd&days=7");
+		assertTrue(chart.get("prices").size() >= 7 * 24);
+		assertEquals(chart.get("prices").size(), chart.get("total_volumes").size());
+
+		JsonNode search = getJson("/search?query=sol");
+		assertEquals("solana", search.get("coins").get(0).get("id").asText());
+
+		assertEquals(404, get("/coins/no-such-coin").statusCode());
+	}
+
+	@Test
+	void answers429WithRetryAfterOncePastTheRateLimit() throws Exception {
+		start("--port=0", "--rate-limit-per-minute=2");
+
+		assertEquals(200, get("/search/trending").statusCode());
+		assertEquals(200, get("/global").statusCode());
+		HttpResponse<String> throttled = get("/search/trending");
+		assertEquals(429, throttled.statusCode());
+		assertTrue(throttled.headers().firstValue("Retry-After").isPresent());
+	}
+
+	private void start(String... args) throws Exception {
+		standIn = new CoinGeckoStandIn(CoinGeckoStandIn.Options.parse(args));
+		standIn.start();
+	}
+
+	private JsonNode getJson(String path) throws Exception {
+		HttpResponse<String> response = get(path);
+		assertEquals(200, response.statusCode(), response.body());
+		return objectMapper.readTree(response.body());
+	}
+
+	private HttpResponse<String> get(String path) throws Exception {
+		return client.send(HttpRequest.newBuilder(URI.create(standIn.baseUrl() + path)).build(),
+				HttpResponse.BodyHandlers.ofString());
+	}
+}
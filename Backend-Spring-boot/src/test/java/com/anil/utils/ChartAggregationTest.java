@@ -0,0 +1,76 @@
+package com.anil.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChartAggregationTest {
+
+	@Test
+	void lttbKeepsEndpointsAndOnePointPerBucket() {
+		int size = 101;
+		long[] t = new long[size];
+		double[] v = new double[size];
+		for (int i = 0; i < size; i++) {
+			t[i] = i * 1000L;
+			v[i] = i % 2;
+		}
+		v[37] = 50; // a spike survives the reduction
+
+		int[] out = new int[10];
+		int count = ChartAggregation.lttb(t, v, size, 10, out);
+
+		assertEquals(10, count);
+		assertEquals(0, out[0]);
+		assertEquals(size - 1, out[count - 1]);
+		// 99 inner points over 8 buckets: each kept index lies in its own bucket
+		double bucketSize = (size - 2) / 8.0;
+		for (int b = 0; b < 8; b++) {
+			int index = out[b + 1];
+			assertTrue(index >= (int) Math.floor(b * bucketSize) + 1 && index < (int) Math.floor((b + 1) * bucketSize) + 1,
+					"bucket " + b + " kept " + index);
+		}
+		boolean spikeKept = false;
+		for (int i = 0; i < count; i++) spikeKept |= out[i] == 37;
+		assertTrue(spikeKept);
+	}
+
+	@Test
+	void lttbReturnsSmallAndEmptyInputUnchanged() {
+		int[] out = new int[5];
+		assertEquals(3, ChartAggregation.lttb(new long[]{1, 2, 3}, new double[]{1, 2, 3}, 3, 5, out));
+		assertArrayEquals(new int[]{0, 1, 2}, Arrays.copyOf(out, 3));
+		assertEquals(0, ChartAggregation.lttb(new long[0], new double[0], 0, 5, out));
+	}
+
+	@Test
+	void ohlcBucketsOnIntervalBoundariesAndSkipsEmptyBuckets() {
+		long minute = 60_000L;
+		long[] t = {0, 30_000, minute - 1, minute, 2 * minute - 1, 3 * minute};
+		double[] v = {10, 14, 9, 20, 18, 5};
+		int max = ChartAggregation.maxCandles(t, t.length, minute);
+		long[] openTime = new long[max];
+		double[] open = new double[max];
+		double[] high = new double[max];
+		double[] low = new double[max];
+		double[] close = new double[max];
+
+		int count = ChartAggregation.ohlc(t, v, t.length, minute, openTime, open, high, low, close);
+
+		assertEquals(3, count);
+		assertArrayEquals(new long[]{0, minute, 3 * minute}, Arrays.copyOf(openTime, count));
+		assertArrayEquals(new double[]{10, 20, 5}, Arrays.copyOf(open, count));
+		assertArrayEquals(new double[]{14, 20, 5}, Arrays.copyOf(high, count));
+		assertArrayEquals(new double[]{9, 18, 5}, Arrays.copyOf(low, count));
+		assertArrayEquals(new double[]{9, 18, 5}, Arrays.copyOf(close, count));
+	}
+
+	@Test
+	void ohlcOfNothingIsNothing() {
+		assertEquals(0, ChartAggregation.maxCandles(new long[0], 0, 60_000L));
+		assertEquals(0, ChartAggregation.ohlc(new long[0], new double[0], 0, 60_000L,
+				new long[0], new double[0], new double[0], new double[0], new double[0]));
+	}
+}
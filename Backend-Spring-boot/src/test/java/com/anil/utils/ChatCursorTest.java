@@ -0,0 +1,25 @@
+package com.anil.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChatCursorTest {
+
+	@Test
+	void roundTripsThroughAnUrlSafeToken() {
+		ChatCursor cursor = new ChatCursor(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456000), 42L);
+		String token = cursor.encode();
+
+		assertTrue(token.matches("[A-Za-z0-9_-]+"));
+		assertEquals(cursor, ChatCursor.decode(token));
+	}
+
+	@Test
+	void rejectsTokensItDidNotIssue() {
+		assertThrows(IllegalArgumentException.class, () -> ChatCursor.decode("not a cursor"));
+		assertThrows(IllegalArgumentException.class, () -> ChatCursor.decode("bm9wZQ"));
+	}
+}
@@ -0,0 +1,71 @@
+package com.anil.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+	private static final CircuitBreaker.FailureClassifier ALL = e -> true;
+
+	@Test
+	void opensAfterConsecutiveFailuresAndProbesOnceAfterCoolDown() throws Exception {
+		List<String> transitions = new ArrayList<>();
+		CircuitBreaker breaker = new CircuitBreaker("test", 3, 50, (from, to) -> transitions.add(from + "->" + to));
+
+		for (int i = 0; i < 3; i++) {
+			assertThrows(IllegalStateException.class, () -> breaker.execute(CircuitBreakerTest::fail, ALL));
+		}
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		CircuitBreaker.OpenException rejected = assertThrows(CircuitBreaker.OpenException.class,
+				() -> breaker.execute(() -> "never called", ALL));
+		assertTrue(rejected.getRetryAfterMillis() > 0);
+
+		Thread.sleep(60);
+		assertEquals("ok", breaker.execute(() -> "ok", ALL));
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+		assertEquals(List.of("CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED"), transitions);
+	}
+
+	@Test
+	void failedProbeReopensAndIgnoredErrorsDoNotCount() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker("test", 2, 20, null);
+
+		for (int i = 0; i < 5; i++) {
+			assertThrows(IllegalStateException.class, () -> breaker.execute(CircuitBreakerTest::fail, e -> false));
+		}
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+		assertThrows(IllegalStateException.class, () -> breaker.execute(CircuitBreakerTest::fail, ALL));
+		assertThrows(IllegalStateException.class, () -> breaker.execute(CircuitBreakerTest::fail, ALL));
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		Thread.sleep(30);
+		assertThrows(IllegalStateException.class, () -> breaker.execute(CircuitBreakerTest::fail, ALL));
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+	}
+
+	@Test
+	void ignoredErrorOnTheProbeLeavesTheBreakerHalfOpenForTheNextCaller() throws Exception {
+		CircuitBreaker breaker = new CircuitBreaker("test", 1, 20, null);
+		assertThrows(IllegalStateException.class, () -> breaker.execute(CircuitBreakerTest::fail, ALL));
+		assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+		Thread.sleep(30);
+		// e.g. the local rate limiter refusing before any request went out
+		assertThrows(IllegalStateException.class, () -> breaker.execute(CircuitBreakerTest::fail, e -> false));
+		assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+		// the probe slot was released: the next caller probes, and its real success closes the breaker
+		assertEquals("ok", breaker.execute(() -> "ok", ALL));
+		assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+	}
+
+	private static String fail() {
+		throw new IllegalStateException("upstream down");
+	}
+}
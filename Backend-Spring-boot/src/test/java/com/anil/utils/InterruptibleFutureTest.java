@@ -0,0 +1,54 @@
+package com.anil.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InterruptibleFutureTest {
+
+	@Test
+	void cancellingInterruptsTheRunningTaskAndSkipsAQueuedOne() throws Exception {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.initialize();
+		try {
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch interrupted = new CountDownLatch(1);
+			InterruptibleFuture<String> running = InterruptibleFuture.supplyAsync(() -> {
+				started.countDown();
+				try {
+					Thread.sleep(60_000);
+				} catch (InterruptedException e) {
+					interrupted.countDown();
+				}
+				return "late";
+			}, executor);
+			AtomicBoolean queuedRan = new AtomicBoolean();
+			InterruptibleFuture<String> queued = InterruptibleFuture.supplyAsync(() -> {
+				queuedRan.set(true);
+				return "queued";
+			}, executor);
+
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			queued.cancel(true);
+			// a timeout completes the future first; cancelling afterwards must still stop the task
+			running.orTimeout(10, TimeUnit.MILLISECONDS);
+			assertThrows(Exception.class, running::join);
+			running.cancel(true);
+
+			assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+			assertTrue(queued.isCancelled());
+			CompletableFuture.runAsync(() -> { }, executor).get(5, TimeUnit.SECONDS);
+			assertFalse(queuedRan.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.anil.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+
+	@Test
+	void matchesWholeWordsOnly() {
+		KeywordMatcher<String> matcher = KeywordMatcher.<String>builder()
+				.add("up", "gain")
+				.add("eth", "ethereum")
+				.add("price", "price")
+				.build();
+
+		assertEquals(List.of(), matcher.matches("need support with method pricing"));
+		assertEquals(List.of("ethereum", "price", "gain"), matcher.matches("Is ETH's price going UP?"));
+	}
+
+	@Test
+	void reportsOverlappingAndMultiWordKeywordsInOnePass() {
+		KeywordMatcher<String> matcher = KeywordMatcher.<String>builder()
+				.add("market", "trend")
+				.add("market cap", "market_cap")
+				.add("cap", "cap")
+				.add("bitcoin cash", "bitcoin-cash")
+				.add("bitcoin", "bitcoin")
+				.build();
+
+		assertEquals(List.of("trend", "market_cap", "cap"), matcher.matches("market cap"));
+		assertEquals(List.of("bitcoin", "bitcoin-cash"), matcher.matches("bitcoin cash"));
+		assertEquals(List.of("bitcoin"), matcher.matches("bitcoin cashback"));
+		assertEquals(List.of(), KeywordMatcher.<String>builder().build().matches("anything"));
+	}
+}
@@ -0,0 +1,69 @@
+package com.anil.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceFrameCodecTest {
+
+	@Test
+	void snapshotRoundTripsEveryField() {
+		double[] bitcoin = {67_123.45, -812.5, -1.197, 68_400.0, 66_010.25, 1_323_000_000_000L, 28_500_000_000L, 1_717_243_200_000L};
+		byte[] frame = new PriceFrameCodec.Writer()
+				.beginFrame(PriceFrameCodec.SNAPSHOT, 42)
+				.coin(id("bitcoin"), PriceFrameCodec.ALL_FIELDS, bitcoin)
+				.endFrame();
+
+		List<String> seen = new ArrayList<>();
+		PriceFrameCodec.Reader reader = new PriceFrameCodec.Reader();
+		int end = reader.read(frame, 0, (coinId, mask, values) -> {
+			seen.add(coinId);
+			assertEquals(PriceFrameCodec.ALL_FIELDS, mask);
+			assertArrayEquals(bitcoin, values);
+		});
+
+		assertEquals(frame.length, end);
+		assertEquals(PriceFrameCodec.SNAPSHOT, reader.type());
+		assertEquals(42, reader.sequence());
+		assertEquals(List.of("bitcoin"), seen);
+	}
+
+	@Test
+	void deltaCarriesOnlyChangedFieldsAndFramesConcatenate() {
+		double[] before = {3_500.0, 10.0, 0.3, 3_600.0, 3_400.0, 420_000_000_000L, 15_000_000_000L, 1_000L};
+		double[] after = before.clone();
+		after[PriceFrameCodec.CURRENT_PRICE] = 3_512.5;
+		after[PriceFrameCodec.LAST_UPDATED] = 61_000L;
+		int mask = PriceFrameCodec.changedFields(before, after);
+		assertEquals((1 << PriceFrameCodec.CURRENT_PRICE) | (1 << PriceFrameCodec.LAST_UPDATED), mask);
+		assertEquals(PriceFrameCodec.ALL_FIELDS, PriceFrameCodec.changedFields(null, after));
+
+		PriceFrameCodec.Writer writer = new PriceFrameCodec.Writer();
+		byte[] record = writer.encodeRecord(id("ethereum"), mask, after);
+		byte[] first = writer.beginFrame(PriceFrameCodec.DELTA, 7).appendRecord(record).endFrame();
+		byte[] second = writer.beginFrame(PriceFrameCodec.DELTA, 8).endFrame();
+		byte[] both = Arrays.copyOf(first, first.length + second.length);
+		System.arraycopy(second, 0, both, first.length, second.length);
+
+		PriceFrameCodec.Reader reader = new PriceFrameCodec.Reader();
+		int next = reader.read(both, 0, (coinId, readMask, values) -> {
+			assertEquals("ethereum", coinId);
+			assertEquals(mask, readMask);
+			assertEquals(3_512.5, values[PriceFrameCodec.CURRENT_PRICE]);
+			assertEquals(61_000L, (long) values[PriceFrameCodec.LAST_UPDATED]);
+		});
+		assertEquals(7, reader.sequence());
+		assertEquals(both.length, reader.read(both, next, (coinId, readMask, values) -> fail("empty frame")));
+		assertEquals(8, reader.sequence());
+		assertTrue(record.length < 30, "two-field delta should stay small, was " + record.length);
+	}
+
+	private byte[] id(String coinId) {
+		return coinId.getBytes(StandardCharsets.UTF_8);
+	}
+}
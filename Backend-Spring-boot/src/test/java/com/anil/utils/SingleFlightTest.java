@@ -0,0 +1,99 @@
+package com.anil.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+	private static final int CALLERS = 64;
+
+	@Test
+	void concurrentCallersShareOneUpstreamCall() throws Exception {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Future<String>> results = runConcurrently(singleFlight, "/coins/bitcoin", () -> {
+			upstreamCalls.incrementAndGet();
+			release.await();
+			return "{\"id\":\"bitcoin\"}";
+		}, release);
+
+		for (Future<String> result : results) {
+			assertEquals("{\"id\":\"bitcoin\"}", result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, upstreamCalls.get());
+		assertEquals(0, singleFlight.inFlightCount());
+	}
+
+	@Test
+	void failureIsSharedByAllWaiters() throws Exception {
+		SingleFlight<String, String> singleFlight = new SingleFlight<>();
+		AtomicInteger upstreamCalls = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+
+		List<Future<String>> results = runConcurrently(singleFlight, "/coins/bitcoin/market_chart", () -> {
+			upstreamCalls.incrementAndGet();
+			release.await();
+			throw new IllegalStateException("429 Too Many Requests");
+		}, release);
+
+		for (Future<String> result : results) {
+			ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+			assertInstanceOf(IllegalStateException.class, e.getCause());
+		}
+		assertEquals(1, upstreamCalls.get());
+	}
+
+	@Test
+	void differentKeysAndLaterCallsAreNotCoalesced() throws Exception {
+		SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+		AtomicInteger upstreamCalls = new AtomicInteger();
+
+		singleFlight.execute("/coins/bitcoin", upstreamCalls::incrementAndGet);
+		singleFlight.execute("/coins/ethereum", upstreamCalls::incrementAndGet);
+		singleFlight.execute("/coins/bitcoin", upstreamCalls::incrementAndGet);
+
+		assertEquals(3, upstreamCalls.get());
+	}
+
+	// starts CALLERS threads on the same key, waits until one of them runs the call and
+	// every other one has joined it, then lets the single upstream call finish
+	private <T> List<Future<T>> runConcurrently(SingleFlight<String, T> singleFlight, String key,
+			SingleFlight.Call<T> upstream, CountDownLatch release) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+		List<Future<T>> results = new ArrayList<>();
+		try {
+			for (int i = 0; i < CALLERS; i++) {
+				results.add(executor.submit(() -> singleFlight.execute(key, upstream)));
+			}
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (singleFlight.waiting(key) < CALLERS - 1) {
+				assertTrue(System.nanoTime() < deadline, "only " + singleFlight.waiting(key) + " callers joined");
+				Thread.sleep(1);
+			}
+			release.countDown();
+			for (Future<T> result : results) {
+				try {
+					result.get(5, TimeUnit.SECONDS);
+				} catch (ExecutionException ignored) {
+					// asserted by the caller
+				}
+			}
+			return results;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package com.anil.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickRingBufferTest {
+
+	@Test
+	void keepsTheNewestTicksOldestFirst() {
+		TickRingBuffer ring = new TickRingBuffer(4);
+		assertEquals(0, ring.snapshot().size());
+		assertEquals(Long.MIN_VALUE, ring.lastTimestamp());
+
+		for (int i = 1; i <= 6; i++) {
+			ring.add(i * 1000L, i, i * 10);
+		}
+
+		TickRingBuffer.Snapshot snapshot = ring.snapshot();
+		assertEquals(4, snapshot.size());
+		assertArrayEquals(new long[]{3000, 4000, 5000, 6000}, snapshot.timestamps());
+		assertArrayEquals(new double[]{3, 4, 5, 6}, snapshot.prices());
+		assertArrayEquals(new double[]{30, 40, 50, 60}, snapshot.volumes());
+		assertEquals(6000, ring.lastTimestamp());
+	}
+
+	@Test
+	void readersSeeConsistentRunsWhileTheWriterLaps() throws Exception {
+		TickRingBuffer ring = new TickRingBuffer(8);
+		AtomicBoolean done = new AtomicBoolean();
+		Thread writer = new Thread(() -> {
+			for (long n = 1; n <= 2_000_000; n++) {
+				// price and volume derive from the timestamp so a torn tick is detectable
+				ring.add(n, n * 2.0, n * 3.0);
+			}
+			done.set(true);
+		});
+		writer.start();
+
+		while (!done.get()) {
+			TickRingBuffer.Snapshot snapshot = ring.snapshot();
+			for (int i = 0; i < snapshot.size(); i++) {
+				long t = snapshot.timestamps()[i];
+				assertEquals(t * 2.0, snapshot.prices()[i]);
+				assertEquals(t * 3.0, snapshot.volumes()[i]);
+				if (i > 0) assertEquals(snapshot.timestamps()[i - 1] + 1, t);
+			}
+		}
+		writer.join();
+	}
+}